@@ -0,0 +1,167 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity.benchmark;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.NormOps_DDRM;
+import org.ejml.dense.row.RandomMatrices_DDRM;
+import org.patryk3211.powergrid.electricity.sim.solver.ISolver;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
+
+import java.util.Random;
+
+/*
+ * Unpreconditioned BiCGSTAB as it was before the vector steps were fused, every step is a separate
+ * EJML call. Only kept as the baseline of KernelBenchmark.
+ */
+class EjmlBiCGSTABSolver implements ISolver {
+    private static final int MAX_ITERATIONS = 200;
+
+    private final Random random = new Random();
+    private final double targetPrecision;
+
+    private DMatrixRMaj guess;
+    private DMatrixRMaj residual;
+    private DMatrixRMaj hatResidual;
+    private DMatrixRMaj p;
+    private DMatrixRMaj v;
+    private DMatrixRMaj h;
+    private DMatrixRMaj s;
+    private DMatrixRMaj t;
+
+    private int iterations;
+    private boolean converged;
+
+    EjmlBiCGSTABSolver(double targetPrecision) {
+        this.targetPrecision = targetPrecision;
+    }
+
+    @Override
+    public void setStateSize(int size) {
+        if(guess == null || guess.getNumRows() != size) {
+            guess = new DMatrixRMaj(size, 1);
+            residual = new DMatrixRMaj(size, 1);
+            hatResidual = new DMatrixRMaj(size, 1);
+            p = new DMatrixRMaj(size, 1);
+            v = new DMatrixRMaj(size, 1);
+            h = new DMatrixRMaj(size, 1);
+            s = new DMatrixRMaj(size, 1);
+            t = new DMatrixRMaj(size, 1);
+            RandomMatrices_DDRM.fillUniform(hatResidual, random);
+        }
+    }
+
+    @Override
+    public void zero() {
+        if(guess != null) {
+            guess.zero();
+            residual.zero();
+            p.zero();
+            v.zero();
+            h.zero();
+            s.zero();
+            t.zero();
+            RandomMatrices_DDRM.fillUniform(hatResidual, random);
+        }
+    }
+
+    @Override
+    public void setInitialGuess(DMatrixRMaj guess) {
+        this.guess.setTo(guess);
+    }
+
+    @Override
+    public void setInterface(boolean[] interfaceUnknowns) {
+    }
+
+    @Override
+    public void setDeadline(long deadline) {
+    }
+
+    @Override
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    @Override
+    public DMatrixRMaj solve(SparseMatrix A, DMatrixRMaj b) {
+        iterations = 0;
+        converged = true;
+
+        // r = b - A * x
+        A.mult(guess, v);
+        CommonOps_DDRM.subtract(b, v, residual);
+        double norm = NormOps_DDRM.normP2(residual);
+        if(norm <= targetPrecision)
+            return guess;
+
+        double dot = CommonOps_DDRM.dot(hatResidual, residual);
+        if(dot == 0) {
+            hatResidual.setTo(residual);
+            dot = CommonOps_DDRM.dot(hatResidual, residual);
+        }
+        p.setTo(residual);
+
+        while(iterations++ < MAX_ITERATIONS) {
+            // v = A * p
+            A.mult(p, v);
+
+            double alpha = dot / CommonOps_DDRM.dot(hatResidual, v);
+            // h = x + alpha * p
+            CommonOps_DDRM.add(guess, alpha, p, h);
+            // s = r - alpha * v
+            CommonOps_DDRM.add(residual, -alpha, v, s);
+
+            norm = NormOps_DDRM.normP2(s);
+            if(norm <= targetPrecision) {
+                guess.setTo(h);
+                break;
+            }
+
+            // t = A * s
+            A.mult(s, t);
+            double omega = CommonOps_DDRM.dot(t, s) / CommonOps_DDRM.dot(t, t);
+
+            // x = h + omega * s
+            CommonOps_DDRM.add(h, omega, s, guess);
+            // r = s - omega * t
+            CommonOps_DDRM.add(s, -omega, t, residual);
+
+            norm = NormOps_DDRM.normP2(residual);
+            if(norm <= targetPrecision)
+                break;
+
+            double dotPrev = dot;
+            dot = CommonOps_DDRM.dot(hatResidual, residual);
+            double beta = (dot / dotPrev) * (alpha / omega);
+            // p = r + β(p − ωv)
+            CommonOps_DDRM.add(p, -omega, v, t);
+            CommonOps_DDRM.add(residual, beta, t, p);
+        }
+
+        if(iterations > MAX_ITERATIONS) {
+            iterations = MAX_ITERATIONS;
+            converged = false;
+        }
+        return guess;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity.benchmark;
+
+import org.ejml.data.DMatrixRMaj;
+import org.openjdk.jmh.annotations.*;
+import org.patryk3211.powergrid.electricity.sim.solver.BiCGSTABSolver;
+import org.patryk3211.powergrid.electricity.sim.solver.ISolver;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Fused vector kernels of BiCGSTAB against the previous implementation built from separate EJML
+ * calls, both unpreconditioned on the same mesh system. The shadow residuals are random, so iteration
+ * counts can differ slightly, they are printed at the end of every trial to compare time per iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+@State(Scope.Thread)
+public class KernelBenchmark {
+    public enum Kernels {
+        EJML,
+        FUSED
+    }
+
+    @Param({ "1000", "10000", "100000" })
+    public int nodes;
+
+    @Param({ "EJML", "FUSED" })
+    public Kernels kernels;
+
+    private SparseMatrix matrix;
+    private DMatrixRMaj vector;
+    private ISolver instance;
+    private long solves;
+    private long iterations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var system = Topologies.meshSystem(nodes);
+        matrix = system.matrix();
+        vector = system.vector();
+        instance = switch(kernels) {
+            case EJML -> new EjmlBiCGSTABSolver(1e-6);
+            case FUSED -> new BiCGSTABSolver(1e-6);
+        };
+        instance.setStateSize(matrix.size());
+        solves = 0;
+        iterations = 0;
+    }
+
+    @Benchmark
+    public DMatrixRMaj solve() {
+        instance.zero();
+        var result = instance.solve(matrix, vector);
+        iterations += instance.getIterations();
+        ++solves;
+        return result;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%nnodes=%d kernels=%s: %.2f iterations per solve%n",
+                matrix.size(), kernels, solves == 0 ? 0.0 : (double) iterations / solves);
+    }
+}
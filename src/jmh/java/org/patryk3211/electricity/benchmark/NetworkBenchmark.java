@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of a whole network calculation as done every game tick. Run with `./gradlew jmh`, the gc profiler
+ * reports the allocation rate. Solver iterations and memory retained per node are printed at the end of
+ * every trial. Parameters can be narrowed down with e.g. `-Pjmh="-p topology=MESH -p nodes=10000"`.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+@State(Scope.Thread)
+public class NetworkBenchmark {
+    @Param({ "LADDER", "MESH", "STAR", "TRANSFORMER_CHAIN", "GENERATOR_FARM" })
+    public Topologies.Kind topology;
+
+    @Param({ "10", "100", "1000", "10000", "100000" })
+    public int nodes;
+
+    @Param({ "BICGSTAB", "BICGSTAB_AMG", "SPARSE_LU" })
+    public SolverType solver;
+
+    private Topologies.Topology network;
+    private long bytesPerNode;
+    private long solves;
+    private long iterations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var runtime = Runtime.getRuntime();
+        System.gc();
+        var before = runtime.totalMemory() - runtime.freeMemory();
+        network = Topologies.build(topology, nodes, solver);
+        network.network.calculate();
+        System.gc();
+        var after = runtime.totalMemory() - runtime.freeMemory();
+        bytesPerNode = Math.max(0, after - before) / network.network.size();
+        solves = 0;
+        iterations = 0;
+    }
+
+    // Inputs changed since the last tick, the solver starts from the previous solution.
+    @Benchmark
+    public int tick() {
+        network.step();
+        network.network.calculate();
+        return count();
+    }
+
+    // Structure changed, the system is rebuilt and the previous solution is remapped.
+    @Benchmark
+    public int rebuild() {
+        network.step();
+        network.network.setDirty();
+        network.network.calculate();
+        return count();
+    }
+
+    private int count() {
+        var count = network.network.getSolverIterations();
+        iterations += count;
+        ++solves;
+        return count;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%s nodes=%d solver=%s: %.2f iterations per solve, %d bytes per node%n",
+                topology, network.network.size(), solver, solves == 0 ? 0.0 : (double) iterations / solves, bytesPerNode);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity.benchmark;
+
+import org.patryk3211.powergrid.electricity.sim.NetworkSnapshot;
+import org.patryk3211.powergrid.electricity.sim.node.CurrentSourceNode;
+import org.patryk3211.powergrid.electricity.sim.node.VoltageSourceNode;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ * Headless replay of network snapshots captured on a server. Every snapshot is rebuilt and solved with
+ * each requested solver, the cold solve includes the system rebuild, warm solves change all source values
+ * slightly like a running machine would. Run with `./gradlew replay -Preplay="<files or directories> [options]"`.
+ *   --solver A,B   solvers to use, the solver the snapshot was captured with by default
+ *   --repeat N     number of warm solves, 20 by default
+ */
+public class SnapshotReplay {
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        List<SolverType> solvers = new ArrayList<>();
+        int repeat = 20;
+        for(int i = 0; i < args.length; ++i) {
+            switch(args[i]) {
+                case "--solver" -> Arrays.stream(args[++i].split(",")).map(SolverType::valueOf).forEach(solvers::add);
+                case "--repeat" -> repeat = Integer.parseInt(args[++i]);
+                default -> collect(Path.of(args[i]), files);
+            }
+        }
+        if(files.isEmpty()) {
+            System.err.println("No snapshot files given");
+            System.exit(1);
+        }
+
+        for(var file : files) {
+            var snapshot = NetworkSnapshot.load(file);
+            System.out.printf("%s: %d nodes, %d wires, %d couplings, captured with %s in %.3f ms, %d iterations, residual %.3e%n",
+                    file.getFileName(), snapshot.nodeCount(), snapshot.wireCount(), snapshot.couplingCount(),
+                    snapshot.solverType, snapshot.solveTime / 1e6, snapshot.iterations, snapshot.residual);
+            for(var solver : solvers.isEmpty() ? List.of(snapshot.solverType) : solvers)
+                replay(snapshot, solver, repeat);
+        }
+    }
+
+    private static void collect(Path path, List<Path> files) throws IOException {
+        if(!Files.isDirectory(path)) {
+            files.add(path);
+            return;
+        }
+        try(Stream<Path> entries = Files.list(path)) {
+            entries.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+    }
+
+    private static void replay(NetworkSnapshot snapshot, SolverType solver, int repeat) {
+        var restored = snapshot.restore(solver);
+        var network = restored.network();
+
+        var start = System.nanoTime();
+        network.calculate();
+        var cold = System.nanoTime() - start;
+        var coldIterations = network.getSolverIterations();
+        var coldResidual = network.getResidual();
+
+        var times = new long[repeat];
+        long iterations = 0;
+        double worstResidual = 0;
+        for(int i = 0; i < repeat; ++i) {
+            // Alternating scale keeps the values close to the captured ones.
+            var scale = i % 2 == 0 ? 1.01f : 1 / 1.01f;
+            for(var node : restored.nodes()) {
+                if(node instanceof VoltageSourceNode source)
+                    source.setVoltage(source.getVoltage() * scale);
+                else if(node instanceof CurrentSourceNode source)
+                    source.setCurrent(source.getCurrent() * scale);
+            }
+            start = System.nanoTime();
+            network.calculate();
+            times[i] = System.nanoTime() - start;
+            iterations += network.getSolverIterations();
+            worstResidual = Math.max(worstResidual, network.getResidual());
+        }
+
+        System.out.printf("  %-16s cold %9.3f ms, %4d iterations, residual %.3e", solver, cold / 1e6, coldIterations, coldResidual);
+        if(repeat > 0) {
+            Arrays.sort(times);
+            System.out.printf(" | warm median %9.3f ms, max %9.3f ms, %.1f iterations, worst residual %.3e",
+                    times[repeat / 2] / 1e6, times[repeat - 1] / 1e6, (double) iterations / repeat, worstResidual);
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity.benchmark;
+
+import org.ejml.data.DMatrixRMaj;
+import org.openjdk.jmh.annotations.*;
+import org.patryk3211.powergrid.electricity.sim.solver.ISolver;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cold solves of a loaded 2D mesh system without the network around it, isolates the solver kernels
+ * and preconditioners. Both formulations are measured, symmetric systems use the Conjugate Gradient.
+ * Direct solvers keep their factorization of the unchanged matrix, only the substitution is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+@State(Scope.Thread)
+public class SolverBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int nodes;
+
+    @Param({ "BICGSTAB", "BICGSTAB_JACOBI", "BICGSTAB_ILU", "BICGSTAB_AMG", "SPARSE_LU" })
+    public SolverType solver;
+
+    @Param({ "true", "false" })
+    public boolean symmetric;
+
+    private SparseMatrix matrix;
+    private DMatrixRMaj vector;
+    private ISolver instance;
+    private long solves;
+    private long iterations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var system = Topologies.meshSystem(nodes);
+        matrix = system.matrix();
+        vector = system.vector();
+        instance = symmetric ? solver.createSymmetric(1e-6) : solver.create(1e-6);
+        instance.setStateSize(matrix.size());
+        solves = 0;
+        iterations = 0;
+    }
+
+    @Benchmark
+    public DMatrixRMaj solve() {
+        instance.zero();
+        var result = instance.solve(matrix, vector);
+        iterations += instance.getIterations();
+        ++solves;
+        return result;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%nnodes=%d solver=%s symmetric=%b: %.2f iterations per solve%n",
+                matrix.size(), solver, symmetric, solves == 0 ? 0.0 : (double) iterations / solves);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity.benchmark;
+
+import org.ejml.data.DMatrixRMaj;
+import org.patryk3211.electricity.generators.Generator;
+import org.patryk3211.powergrid.electricity.sim.ElectricWire;
+import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+import org.patryk3211.powergrid.electricity.sim.node.FloatingNode;
+import org.patryk3211.powergrid.electricity.sim.node.IElectricNode;
+import org.patryk3211.powergrid.electricity.sim.node.TransformerCoupling;
+import org.patryk3211.powergrid.electricity.sim.node.VoltageSourceNode;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Synthetic networks resembling what players build, sized by the approximate number of nodes.
+ */
+public class Topologies {
+    public enum Kind {
+        // Source feeding a line with a load at every node.
+        LADDER,
+        // Square grid of wires fed at the corners, loads on every 7th node.
+        MESH,
+        // Single source with many loaded feeder lines.
+        STAR,
+        // Ladder sections connected by transformers.
+        TRANSFORMER_CHAIN,
+        // Generators driving a shared bus, their voltages change every tick.
+        GENERATOR_FARM
+    }
+
+    public static class Topology {
+        public final ElectricalNetwork network;
+        final List<VoltageSourceNode> sources = new ArrayList<>();
+        final List<Generator> generators = new ArrayList<>();
+        private int tick;
+
+        Topology(SolverType solver) {
+            network = new ElectricalNetwork(solver);
+        }
+
+        FloatingNode node() {
+            var node = new FloatingNode();
+            network.addNode(node);
+            return node;
+        }
+
+        VoltageSourceNode source(float voltage) {
+            var node = new VoltageSourceNode(voltage);
+            network.addNode(node);
+            sources.add(node);
+            return node;
+        }
+
+        void wire(float resistance, IElectricNode node1, IElectricNode node2) {
+            network.addWire(new ElectricWire(resistance, node1, node2));
+        }
+
+        // Change the inputs the way a game tick does, the next calculation can't be skipped.
+        public void step() {
+            ++tick;
+            if(!generators.isEmpty()) {
+                for(var generator : generators)
+                    generator.step(1f / 20);
+                return;
+            }
+            var scale = (tick & 1) == 0 ? 1.0f : 1.01f;
+            for(int i = 0; i < sources.size(); ++i)
+                sources.get(i).setVoltage((100 + i) * scale);
+        }
+    }
+
+    // Bare system of a loaded 2D mesh fed at the corners, without the network around it.
+    public record LinearSystem(SparseMatrix matrix, DMatrixRMaj vector) {
+    }
+
+    public static LinearSystem meshSystem(int nodes) {
+        final int side = (int) Math.ceil(Math.sqrt(nodes));
+        final int size = side * side;
+        var matrix = new SparseMatrix(size);
+        var vector = new DMatrixRMaj(size, 1);
+        for(int y = 0; y < side; ++y) {
+            for(int x = 0; x < side; ++x) {
+                var index = y * side + x;
+                if(x + 1 < side)
+                    stamp(matrix, index, index + 1, 1.0 / (1 + index % 3));
+                if(y + 1 < side)
+                    stamp(matrix, index, index + side, 1.0 / (1 + index % 5));
+                if(index % 7 == 0)
+                    matrix.add(index, index, 0.01);
+            }
+        }
+        for(var corner : new int[] { 0, side - 1, size - side, size - 1 }) {
+            matrix.add(corner, corner, 10);
+            vector.set(corner, 0, 1000);
+        }
+        return new LinearSystem(matrix, vector);
+    }
+
+    private static void stamp(SparseMatrix matrix, int a, int b, double conductance) {
+        matrix.add(a, a, conductance);
+        matrix.add(b, b, conductance);
+        matrix.add(a, b, -conductance);
+        matrix.add(b, a, -conductance);
+    }
+
+    public static Topology build(Kind kind, int nodes, SolverType solver) {
+        var topology = new Topology(solver);
+        topology.network.beginBatch();
+        switch(kind) {
+            case LADDER -> ladder(topology, topology.source(100), nodes);
+            case MESH -> mesh(topology, nodes);
+            case STAR -> star(topology, nodes);
+            case TRANSFORMER_CHAIN -> transformerChain(topology, nodes);
+            case GENERATOR_FARM -> generatorFarm(topology, nodes);
+        }
+        topology.network.commit();
+        return topology;
+    }
+
+    // Returns the last node of the ladder.
+    private static IElectricNode ladder(Topology topology, IElectricNode start, int length) {
+        var previous = start;
+        for(int i = 0; i < length; ++i) {
+            var node = topology.node();
+            topology.wire(1.0f + (i % 5), previous, node);
+            topology.wire(50.0f * (1 + i % 4), node, null);
+            previous = node;
+        }
+        return previous;
+    }
+
+    private static void mesh(Topology topology, int nodes) {
+        final int side = Math.max(2, (int) Math.ceil(Math.sqrt(nodes)));
+        var grid = new FloatingNode[side * side];
+        for(int i = 0; i < grid.length; ++i)
+            grid[i] = topology.node();
+        for(int y = 0; y < side; ++y) {
+            for(int x = 0; x < side; ++x) {
+                var index = y * side + x;
+                if(x + 1 < side)
+                    topology.wire(1.0f + (index % 3), grid[index], grid[index + 1]);
+                if(y + 1 < side)
+                    topology.wire(1.0f + (index % 5), grid[index], grid[index + side]);
+                if(index % 7 == 0)
+                    topology.wire(100, grid[index], null);
+            }
+        }
+        for(var corner : new int[] { 0, side - 1, side * (side - 1), side * side - 1 })
+            topology.wire(0.1f, topology.source(100), grid[corner]);
+    }
+
+    private static void star(Topology topology, int nodes) {
+        var source = topology.source(100);
+        final int feeders = Math.max(1, (int) Math.round(Math.sqrt(nodes)));
+        final int length = Math.max(1, nodes / feeders);
+        for(int i = 0; i < feeders; ++i)
+            ladder(topology, source, length);
+    }
+
+    private static void transformerChain(Topology topology, int nodes) {
+        final int section = Math.min(50, nodes);
+        final int sections = Math.max(1, nodes / section);
+        IElectricNode start = topology.source(100);
+        for(int i = 0; i < sections; ++i) {
+            var end = ladder(topology, start, section);
+            if(i + 1 == sections)
+                break;
+            var secondary = topology.node();
+            topology.network.addNode(TransformerCoupling.create(i % 2 == 0 ? 2.0f : 0.5f, 0.1f, end, secondary));
+            start = secondary;
+        }
+    }
+
+    private static void generatorFarm(Topology topology, int nodes) {
+        // Every generator brings a source, two terminals and a coupling.
+        final int count = Math.max(1, nodes / 4);
+        var bus = topology.node();
+        var ground = new VoltageSourceNode(0);
+        topology.network.addNode(ground);
+        topology.wire(1, bus, ground);
+        for(int i = 0; i < count; ++i) {
+            var generator = new Generator(10.0f, 0.2f);
+            generator.speed = 1 + i % 5;
+            generator.addTo(topology.network);
+            topology.wire(0.01f, generator.positive, bus);
+            topology.wire(0.01f, generator.negative, ground);
+            topology.generators.add(generator);
+        }
+    }
+}
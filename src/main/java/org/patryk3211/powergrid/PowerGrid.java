@@ -42,6 +42,8 @@ import org.patryk3211.powergrid.electricity.heater.HeaterFanProcessingTypes;
 import org.patryk3211.powergrid.electricity.info.ElectricProperties;
 import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
 import org.patryk3211.powergrid.network.ServerBoundPackets;
+import org.patryk3211.powergrid.utility.MetricsExporter;
+import org.patryk3211.powergrid.utility.TickProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -94,6 +96,9 @@ public class PowerGrid implements ModInitializer {
 
 		GlobalElectricNetworks.init();
 		ServerBoundPackets.init();
+		ModdedCommands.register();
+		TickProfiler.init();
+		MetricsExporter.init();
 	}
 
 	private static void registerRecipes() {
@@ -66,6 +66,7 @@ import org.patryk3211.powergrid.chemistry.vat.particles.GasParticleData;
 import org.patryk3211.powergrid.chemistry.vat.upgrade.ChemicalVatUpgrade;
 import org.patryk3211.powergrid.utility.Lang;
 import org.patryk3211.powergrid.utility.PreciseNumberFormat;
+import org.patryk3211.powergrid.utility.TickProfiler;
 import org.patryk3211.powergrid.utility.Unit;
 
 import java.util.*;
@@ -102,6 +103,15 @@ public class ChemicalVatBlockEntity extends SmartBlockEntity implements SidedSto
 
     @Override
     public void tick() {
+        var start = TickProfiler.start(world);
+        try {
+            tickVat();
+        } finally {
+            TickProfiler.end(TickProfiler.Subsystem.CHEMICAL_VAT, this, start);
+        }
+    }
+
+    private void tickVat() {
         super.tick();
 
         boolean stillBurning = false;
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.collections;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.simibubi.create.foundation.blockEntity.behaviour.BlockEntityBehaviour;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.command.argument.BlockPosArgumentType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+import org.patryk3211.powergrid.PowerGrid;
+import org.patryk3211.powergrid.electricity.GlobalElectricNetworks;
+import org.patryk3211.powergrid.electricity.NetworkMetricsExport;
+import org.patryk3211.powergrid.electricity.NetworkSnapshots;
+import org.patryk3211.powergrid.electricity.base.ElectricBehaviour;
+import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+import org.patryk3211.powergrid.utility.TickProfiler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+public class ModdedCommands {
+    public static void register() {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> register(dispatcher));
+    }
+
+    private static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        dispatcher.register(CommandManager.literal(PowerGrid.MOD_ID)
+                .requires(source -> source.hasPermissionLevel(2))
+                .then(CommandManager.literal("snapshot")
+                        .then(CommandManager.literal("slowest")
+                                .executes(ModdedCommands::snapshotSlowest))
+                        .then(CommandManager.argument("pos", BlockPosArgumentType.blockPos())
+                                .executes(ModdedCommands::snapshotAt)))
+                .then(CommandManager.literal("metrics")
+                        .executes(context -> metrics(context.getSource()))
+                        .then(CommandManager.literal("export")
+                                .executes(context -> exportMetrics(context.getSource()))))
+                .then(CommandManager.literal("profile")
+                        .executes(context -> profile(context.getSource(), 10, 5))
+                        .then(CommandManager.argument("seconds", IntegerArgumentType.integer(1, TickProfiler.HISTORY))
+                                .executes(context -> profile(context.getSource(), IntegerArgumentType.getInteger(context, "seconds"), 5))
+                                .then(CommandManager.argument("count", IntegerArgumentType.integer(1, 50))
+                                        .executes(context -> profile(context.getSource(),
+                                                IntegerArgumentType.getInteger(context, "seconds"),
+                                                IntegerArgumentType.getInteger(context, "count")))))));
+    }
+
+    // Network of the electric block at the given position.
+    private static int snapshotAt(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        var source = context.getSource();
+        var pos = BlockPosArgumentType.getLoadedBlockPos(context, "pos");
+        var behaviour = BlockEntityBehaviour.get(source.getWorld(), pos, ElectricBehaviour.TYPE);
+        var network = behaviour == null ? null : behaviour.getNetwork();
+        if(network == null) {
+            source.sendError(Text.literal("No electrical network at " + pos.toShortString()));
+            return 0;
+        }
+        return snapshot(source, network);
+    }
+
+    // Network of the current world which took the longest to solve last time.
+    private static int snapshotSlowest(CommandContext<ServerCommandSource> context) {
+        var source = context.getSource();
+        ElectricalNetwork slowest = null;
+        for(var network : GlobalElectricNetworks.getNetworks(source.getWorld())) {
+            if(slowest == null || network.getSolveTime() > slowest.getSolveTime())
+                slowest = network;
+        }
+        if(slowest == null) {
+            source.sendError(Text.literal("There are no electrical networks in this world"));
+            return 0;
+        }
+        return snapshot(source, slowest);
+    }
+
+    // Networks of the current world which had the most trouble with their last solve.
+    private static int metrics(ServerCommandSource source) {
+        var networks = new ArrayList<>(GlobalElectricNetworks.getNetworks(source.getWorld()));
+        if(networks.isEmpty()) {
+            source.sendError(Text.literal("There are no electrical networks in this world"));
+            return 0;
+        }
+        networks.sort(Comparator.comparingLong((ElectricalNetwork network) -> network.getMetrics().getLastSolveTime()).reversed());
+        source.sendFeedback(() -> Text.literal(networks.size() + " electrical networks, slowest:"), false);
+        for(var network : networks.subList(0, Math.min(networks.size(), 10))) {
+            var metrics = network.getMetrics();
+            var pos = GlobalElectricNetworks.getPosition(network);
+            final var line = String.format("  %s: %d nodes, %s, %.3f ms, %d iterations, residual %.2e, %d unconverged, %d NaN retries, %d rebuilds",
+                    pos == null ? "unknown" : pos.toShortString(), network.size(), network.getSolverType(),
+                    metrics.getLastSolveTime() / 1e6, metrics.getLastIterations(), metrics.getLastResidual(),
+                    metrics.getUnconvergedSolves(), metrics.getNanRetries(), metrics.getRebuilds());
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int exportMetrics(ServerCommandSource source) {
+        try {
+            var path = NetworkMetricsExport.export(source.getWorld());
+            source.sendFeedback(() -> Text.literal("Saved network metrics to " + path.getFileName()), true);
+            return Command.SINGLE_SUCCESS;
+        } catch(IOException e) {
+            PowerGrid.LOGGER.warn("Failed to export electrical network metrics", e);
+            source.sendError(Text.literal("Failed to export metrics: " + e.getMessage()));
+            return 0;
+        }
+    }
+
+    // Time spent per subsystem and the most expensive objects of each over the last `seconds`.
+    private static int profile(ServerCommandSource source, int seconds, int count) {
+        if(!TickProfiler.isEnabled()) {
+            source.sendError(Text.literal("Tick profiler is disabled in the server config"));
+            return 0;
+        }
+        source.sendFeedback(() -> Text.literal("PowerGrid tick time over the last " + seconds + " s:"), false);
+        for(var subsystem : TickProfiler.Subsystem.values()) {
+            var summary = TickProfiler.summarize(subsystem, seconds);
+            if(summary.calls() == 0)
+                continue;
+            source.sendFeedback(() -> Text.literal(String.format("%s: %.2f ms/s, %d calls, median < %s, p99 < %s, max %s",
+                    subsystem.name().toLowerCase(), summary.time() / 1e6 / seconds, summary.calls(),
+                    time(summary.median()), time(summary.p99()), time(summary.max()))), false);
+            for(var offender : TickProfiler.top(subsystem, seconds, count)) {
+                var pos = TickProfiler.position(offender.key());
+                var name = pos == null ? "unknown" : pos.toShortString();
+                if(offender.key() instanceof ElectricalNetwork network)
+                    name += " (" + network.size() + " nodes)";
+                final var line = String.format("  %s: %.2f ms/s, %d calls, max %s",
+                        name, offender.time() / 1e6 / seconds, offender.calls(), time(offender.max()));
+                source.sendFeedback(() -> Text.literal(line), false);
+            }
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static String time(long nanos) {
+        if(nanos >= 1_000_000)
+            return String.format("%.2f ms", nanos / 1e6);
+        return String.format("%.1f us", nanos / 1e3);
+    }
+
+    private static int snapshot(ServerCommandSource source, ElectricalNetwork network) {
+        try {
+            var path = NetworkSnapshots.save(network);
+            var solveTime = network.getSolveTime();
+            source.sendFeedback(() -> Text.literal(String.format("Saved network with %d nodes (last solve %.2f ms) to %s",
+                    network.size(), solveTime / 1e6, path.getFileName())), true);
+            return Command.SINGLE_SUCCESS;
+        } catch(IOException | IllegalStateException e) {
+            PowerGrid.LOGGER.warn("Failed to save electrical network snapshot", e);
+            source.sendError(Text.literal("Failed to save snapshot: " + e.getMessage()));
+            return 0;
+        }
+    }
+}
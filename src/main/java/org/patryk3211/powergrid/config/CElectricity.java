@@ -16,6 +16,7 @@
 package org.patryk3211.powergrid.config;
 
 import com.simibubi.create.foundation.config.ConfigBase;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
 
 public class CElectricity extends ConfigBase {
     public final ConfigFloat heaterResistance = f(10, 0.1f, "heaterResistance", Comments.heaterResistance);
@@ -24,6 +25,15 @@ public class CElectricity extends ConfigBase {
     public final ConfigInt growthLampRadius = i(2, 1, "growthLampRadius", Comments.growthLampRadius);
     public final ConfigInt growthLampChance = i(50, 0, "growthLampChance", Comments.growthLampChance);
 
+    public final ConfigEnum<SolverType> networkSolver = e(SolverType.BICGSTAB, "networkSolver", Comments.networkSolver);
+    public final ConfigInt solverThreads = i(1, 0, "solverThreads", Comments.solverThreads);
+    public final ConfigBool pipelinedSolve = b(false, "pipelinedSolve", Comments.pipelinedSolve);
+    public final ConfigInt lodDistance = i(64, 0, "lodDistance", Comments.lodDistance);
+    public final ConfigInt lodInterval = i(10, 1, "lodInterval", Comments.lodInterval);
+    public final ConfigFloat solveBudget = f(0, 0, "solveBudget", Comments.solveBudget);
+    public final ConfigFloat snapshotThreshold = f(0, 0, "snapshotThreshold", Comments.snapshotThreshold);
+    public final ConfigBool networkMetricsOverlay = b(false, "networkMetricsOverlay", Comments.networkMetricsOverlay);
+
     @Override
     public String getName() {
         return "electricity";
@@ -35,5 +45,14 @@ public class CElectricity extends ConfigBase {
 
         public static final String growthLampRadius = "Radius of the area affected by growth lamp effect";
         public static final String growthLampChance = "Chance value for the growth lamp to tick a random block in its area (lower value = higher chance), this value is divided by lamp's power level";
+
+        public static final String networkSolver = "Solver used by newly created electrical networks, SPARSE_LU is a direct solver which is more robust and faster for networks which mostly change voltages and currents, BICGSTAB_AMG scales best for very large meshes of wires. Networks without transformers use Conjugate Gradient in place of BICGSTAB";
+        public static final String solverThreads = "Number of threads solving independent electrical networks in parallel (0 = number of available processors, 1 = solve on the world thread)";
+        public static final String pipelinedSolve = "Solve electrical networks in the background between world ticks, the server thread never waits for the solver, results are delayed by at least one tick and networks which take longer are published once their solve finishes";
+        public static final String lodDistance = "Electrical networks with no block within this distance of a player (or only in lazily loaded chunks) are solved at a reduced rate, networks with gauges, motors or generators always run at full rate (0 = always full rate)";
+        public static final String lodInterval = "Number of ticks between solves of a reduced rate electrical network, results of the last solve are kept in between";
+        public static final String solveBudget = "Time in milliseconds electrical networks of all dimensions together can spend solving each server tick, networks over the budget keep their results and are solved on the following ticks in the order they waited, a network which keeps running out of time publishes its unfinished results every few ticks (0 = no limit)";
+        public static final String snapshotThreshold = "Electrical networks taking longer than this many milliseconds to solve are saved to powergrid/snapshots in the game directory for offline analysis, at most once a minute (0 = disabled)";
+        public static final String networkMetricsOverlay = "Show solver statistics of the electrical network when looking at any electric block with goggles while sneaking";
     }
 }
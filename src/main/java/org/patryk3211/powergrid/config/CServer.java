@@ -16,11 +16,17 @@
 package org.patryk3211.powergrid.config;
 
 import com.simibubi.create.foundation.config.ConfigBase;
+import org.patryk3211.powergrid.utility.MetricsExporter;
 
 public class CServer extends ConfigBase {
     public final CElectricity electricity = nested(0, CElectricity::new, Comments.electricity);
     public final CKinetics kinetics = nested(0, CKinetics::new, Comments.kinetics);
 
+    public final ConfigBool tickProfiler = b(true, "tickProfiler", Comments.tickProfiler);
+    public final ConfigEnum<MetricsExporter.Mode> metricsExport = e(MetricsExporter.Mode.OFF, "metricsExport", Comments.metricsExport);
+    public final ConfigInt metricsPort = i(9464, 1024, 65535, "metricsPort", Comments.metricsPort);
+    public final ConfigInt metricsInterval = i(15, 1, "metricsInterval", Comments.metricsInterval);
+
     @Override
     public String getName() {
         return "server";
@@ -29,5 +35,9 @@ public class CServer extends ConfigBase {
     private static class Comments {
         public static final String electricity = "All things related to purely electrical devices";
         public static final String kinetics = "Things related to kinetic and electrokinetic devices";
+        public static final String tickProfiler = "Measure time spent in electrical networks, chemical vats, wires and other ticking parts of the mod, results are shown by the /powergrid profile command and recorded as JFR events";
+        public static final String metricsExport = "Export network, solver, tick time and packet counters in Prometheus text format, FILE writes them to powergrid/metrics.prom in the game directory, HTTP serves them at http://127.0.0.1:<metricsPort>/metrics";
+        public static final String metricsPort = "Port of the metrics endpoint, it only accepts connections from this machine";
+        public static final String metricsInterval = "Seconds between updates of the exported metrics";
     }
 }
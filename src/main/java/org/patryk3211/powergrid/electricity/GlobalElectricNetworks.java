@@ -17,48 +17,285 @@ package org.patryk3211.powergrid.electricity;
 
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+import org.patryk3211.powergrid.collections.ModdedConfigs;
 import org.patryk3211.powergrid.electricity.base.ElectricBehaviour;
 import org.patryk3211.powergrid.electricity.sim.ElectricWire;
 import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
 import org.patryk3211.powergrid.electricity.sim.node.IElectricNode;
+import org.patryk3211.powergrid.electricity.sim.solver.ISolver;
 import org.patryk3211.powergrid.electricity.wire.IWireEndpoint;
+import org.patryk3211.powergrid.utility.TickProfiler;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class GlobalElectricNetworks {
     protected static final Map<World, List<ElectricalNetwork>> worldNetworks = new HashMap<>();
+    // Solves started at the end of a previous world tick in pipelined mode which weren't published yet.
+    private static final Map<World, List<PendingSolve>> pendingSolves = new HashMap<>();
+    // Pipelined solves without a configured budget still stop after a tick, long solves continue on the next one.
+    private static final long PIPELINED_DEADLINE = 50_000_000L;
+    // Solve time left in the current server tick, the budget is shared by all worlds.
+    private static long remainingBudget;
+    // Pipelined solves of all worlds started during one server tick end together.
+    private static long pipelinedDeadline;
+    private static boolean pipelinedDeadlineSet;
+    private static ForkJoinPool solverPool;
+    // Number of callers currently submitting to each pool, a replaced pool is shut down once it has none.
+    private static final Map<ForkJoinPool, Integer> poolUsers = new HashMap<>();
+
+    private record PendingSolve(ElectricalNetwork network, ForkJoinTask<?> task) {
+    }
 
     public static void init() {
-        ServerTickEvents.START_WORLD_TICK.register(GlobalElectricNetworks::tick);
-        ServerWorldEvents.UNLOAD.register((server, world) -> worldNetworks.remove(world));
+        ServerTickEvents.START_SERVER_TICK.register(server -> {
+            remainingBudget = budget();
+            pipelinedDeadlineSet = false;
+        });
+        ServerTickEvents.START_WORLD_TICK.register(GlobalElectricNetworks::startServerTick);
+        ServerTickEvents.END_WORLD_TICK.register(GlobalElectricNetworks::endServerTick);
+        ServerWorldEvents.UNLOAD.register((server, world) -> {
+            worldNetworks.remove(world);
+            pendingSolves.remove(world);
+        });
+    }
+
+    private static void startServerTick(World world) {
+        var start = TickProfiler.start(world);
+        final var pipelined = ModdedConfigs.server().electricity.pipelinedSolve.get();
+        var pending = pendingSolves.get(world);
+        if(pending != null) {
+            publishFinished(world, pending, !pipelined);
+            if(pending.isEmpty())
+                pendingSolves.remove(world);
+        }
+        if(!pipelined)
+            tick(world);
+        TickProfiler.end(TickProfiler.Subsystem.ELECTRIC_TICK, world, start);
+    }
+
+    private static void endServerTick(World world) {
+        if(!ModdedConfigs.server().electricity.pipelinedSolve.get())
+            return;
+        var start = TickProfiler.start(world);
+        submitSolves(world);
+        TickProfiler.end(TickProfiler.Subsystem.ELECTRIC_TICK, world, start);
+    }
+
+    /**
+     * Publishes pipelined solves which finished since the last check, the rest stay pending. Results of earlier
+     * solves are still published after the mode was switched off, then nothing else would pick them up and the
+     * server thread waits for them.
+     */
+    private static void publishFinished(World world, List<PendingSolve> pending, boolean wait) {
+        List<ElectricalNetwork> finished = new ArrayList<>(pending.size());
+        for(var iterator = pending.iterator(); iterator.hasNext(); ) {
+            var solve = iterator.next();
+            if(!wait && !solve.task().isDone())
+                continue;
+            solve.task().join();
+            finished.add(solve.network());
+            iterator.remove();
+        }
+        if(finished.isEmpty())
+            return;
+        finished.forEach(ElectricalNetwork::applyResults);
+        profile(world, finished);
+        NetworkSnapshots.captureSlow(world, finished);
+    }
+
+    private static void submitSolves(World world) {
+        // System is captured at the end of the tick and solved while the server does other work,
+        // the network can be freely modified in the meantime since solvers work on a snapshot.
+        // Networks still being solved are left alone until their solve finishes.
+        final var start = System.nanoTime();
+        final long deadline;
+        if(budget() <= 0) {
+            deadline = start + PIPELINED_DEADLINE;
+        } else {
+            if(!pipelinedDeadlineSet) {
+                pipelinedDeadline = start + remainingBudget;
+                pipelinedDeadlineSet = true;
+            }
+            deadline = pipelinedDeadline;
+        }
+        var pending = pendingSolves.computeIfAbsent(world, key -> new ArrayList<>());
+        Set<ElectricalNetwork> busy = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(var solve : pending)
+            busy.add(solve.network());
+        var networks = prepareNetworks(world, true, busy);
+        if(networks != null && world instanceof ServerWorld) {
+            // Solves run in the background, the budget is spent by their expected time on each thread.
+            long expected = 0;
+            for(final var network : networks)
+                expected += network.getSolveTime();
+            remainingBudget = Math.max(remainingBudget - expected / Math.max(solverThreads(), 1), 0);
+        }
+        if(networks == null || networks.isEmpty()) {
+            if(pending.isEmpty())
+                pendingSolves.remove(world);
+            return;
+        }
+        var pool = acquireSolverPool(Math.max(solverThreads(), 1));
+        try {
+            for(final var network : networks)
+                pending.add(new PendingSolve(network, pool.submit(() -> network.solveUntil(deadline))));
+        } finally {
+            releaseSolverPool(pool);
+        }
     }
 
     protected static void tick(World world) {
+        final var start = System.nanoTime();
+        final var deadline = deadline(world, start);
+        var solved = prepareNetworks(world, false, Set.of());
+        if(solved == null)
+            return;
+
+        solveAll(solved, deadline);
+        // Results are applied in scheduling order, independent of the order in which solves finished.
+        for(final var network : solved)
+            network.applyResults();
+        if(world instanceof ServerWorld)
+            remainingBudget = Math.max(remainingBudget - (System.nanoTime() - start), 0);
+        profile(world, solved);
+        NetworkSnapshots.captureSlow(world, solved);
+    }
+
+    // Solves run on worker threads, their time is recorded once they are joined. The profiler is only
+    // used from the server thread, client and Ponder worlds tick on other threads.
+    private static void profile(World world, List<ElectricalNetwork> networks) {
+        if(!TickProfiler.isEnabled() || !(world instanceof ServerWorld))
+            return;
+        for(final var network : networks)
+            TickProfiler.record(TickProfiler.Subsystem.ELECTRIC_NETWORK, network, network.getPrepareTime() + network.getSolveTime());
+    }
+
+    // Returns networks of the world which have to be solved, networks which are still being solved are skipped.
+    private static List<ElectricalNetwork> prepareNetworks(World world, boolean snapshot, Set<ElectricalNetwork> busy) {
         var networks = worldNetworks.get(world);
         if(networks == null)
-            return;
+            return null;
+        // Networks which fell apart after removals are split into separate networks before solving.
+        List<ElectricalNetwork> created = new LinkedList<>();
+        for(final var network : networks) {
+            if(network.isSplitPending() && !busy.contains(network))
+                created.addAll(network.split());
+        }
+        networks.addAll(created);
+
         List<ElectricalNetwork> removed = new LinkedList<>();
+        List<ElectricalNetwork> changed = new ArrayList<>();
         for(final var network : networks) {
             if(network.isEmpty()) {
                 removed.add(network);
                 continue;
             }
-            if(network.isDirty()) {
-                // Two more recalculations to make sure the network is stable.
-                network.calculate();
-                network.calculate();
-            }
-            network.calculate();
+            if(network.needsCalculation() && !busy.contains(network))
+                changed.add(network);
         }
         networks.removeAll(removed);
+
+        // Networks far from players only solve every few ticks and networks over the time budget wait
+        // for a later tick, the rest of the time they keep their results.
+        List<ElectricalNetwork> solved = new ArrayList<>();
+        for(final var network : NetworkScheduler.schedule(world, changed, scheduleBudget())) {
+            if(network.prepare(snapshot))
+                solved.add(network);
+        }
+        return solved;
+    }
+
+    // Solve time available each tick in nanoseconds, 0 for no limit.
+    private static long budget() {
+        return (long) (ModdedConfigs.server().electricity.solveBudget.get() * 1_000_000);
+    }
+
+    // Budget left for the scheduler summed over all solver threads. Once it runs out only the network
+    // which waited the longest is solved, see SolveScheduler.
+    private static long scheduleBudget() {
+        if(budget() <= 0)
+            return 0;
+        return Math.max(remainingBudget * Math.max(solverThreads(), 1), 1);
+    }
+
+    // Only server worlds have a budget, see NetworkScheduler.
+    private static long deadline(World world, long start) {
+        if(!(world instanceof ServerWorld) || budget() <= 0)
+            return ISolver.NO_DEADLINE;
+        return start + remainingBudget;
+    }
+
+    private static int solverThreads() {
+        int threads = ModdedConfigs.server().electricity.solverThreads.get();
+        if(threads == 0)
+            threads = Runtime.getRuntime().availableProcessors();
+        return threads;
+    }
+
+    private static void solveAll(List<ElectricalNetwork> networks, long deadline) {
+        int threads = solverThreads();
+        if(threads <= 1 || networks.size() <= 1) {
+            for(final var network : networks)
+                network.solveUntil(deadline);
+            return;
+        }
+
+        // Every network owns its matrices and solver, they can be solved independently.
+        var pool = acquireSolverPool(threads);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(networks.size());
+        try {
+            for(final var network : networks)
+                tasks.add(pool.submit(() -> network.solveUntil(deadline)));
+        } finally {
+            releaseSolverPool(pool);
+        }
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    // Client and server worlds can tick at the same time, they share the pool.
+    private static synchronized ForkJoinPool acquireSolverPool(int threads) {
+        if(solverPool == null || solverPool.getParallelism() != threads) {
+            var replaced = solverPool;
+            solverPool = new ForkJoinPool(threads);
+            // The other side might still be submitting to the replaced pool, it's shut down once it's released.
+            if(replaced != null && !poolUsers.containsKey(replaced))
+                replaced.shutdown();
+        }
+        poolUsers.merge(solverPool, 1, Integer::sum);
+        return solverPool;
+    }
+
+    // Tasks submitted before the shutdown still run, they can be joined after the pool is released.
+    private static synchronized void releaseSolverPool(ForkJoinPool pool) {
+        if(poolUsers.merge(pool, -1, Integer::sum) > 0)
+            return;
+        poolUsers.remove(pool);
+        if(pool != solverPool)
+            pool.shutdown();
+    }
+
+    public static List<ElectricalNetwork> getNetworks(World world) {
+        return worldNetworks.getOrDefault(world, List.of());
+    }
+
+    // Position of one of the blocks in the network, null if it has none.
+    @Nullable
+    public static BlockPos getPosition(ElectricalNetwork network) {
+        for(var group : network.getNodeGroups()) {
+            if(group instanceof ElectricBehaviour.NodeGroup blockGroup)
+                return blockGroup.getPos();
+        }
+        return null;
     }
 
     public static ElectricalNetwork createNetwork(World level) {
-        var network = new ElectricalNetwork();
+        var network = new ElectricalNetwork(ModdedConfigs.server().electricity.networkSolver.get());
         var networkList = worldNetworks.computeIfAbsent(level, key -> new LinkedList<>());
         networkList.add(network);
         return network;
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity;
+
+import net.minecraft.world.World;
+import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Writes solver health metrics of every network in a world as CSV, one row per network. Used to find
+ * networks which need compaction or a different solver.
+ */
+public class NetworkMetricsExport {
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String HEADER = "x,y,z,nodes,compacted_nodes,nonzeros,solver,solves,last_iterations,average_iterations," +
+            "residual,solve_time_ms,unconverged,interrupted,nan_retries,rebuilds,seconds_since_topology_change";
+
+    public static Path export(World world) throws IOException {
+        var path = NetworkSnapshots.directory().resolveSibling("metrics-" + LocalDateTime.now().format(FILE_TIME) + ".csv");
+        Files.createDirectories(path.getParent());
+        var builder = new StringBuilder(HEADER).append('\n');
+        for(var network : GlobalElectricNetworks.getNetworks(world))
+            row(builder, network);
+        Files.writeString(path, builder);
+        return path;
+    }
+
+    private static void row(StringBuilder builder, ElectricalNetwork network) {
+        var metrics = network.getMetrics();
+        var pos = GlobalElectricNetworks.getPosition(network);
+        if(pos != null)
+            builder.append(pos.getX()).append(',').append(pos.getY()).append(',').append(pos.getZ());
+        else
+            builder.append(",,");
+        builder.append(String.format(Locale.ROOT, ",%d,%d,%d,%s,%d,%d,%.2f,%.3e,%.3f,%d,%d,%d,%d,%d\n",
+                network.size(), network.getCompactedNodeCount(), network.getNonZeroCount(), network.getSolverType(),
+                metrics.getSolves(), metrics.getLastIterations(), metrics.getAverageIterations(), metrics.getLastResidual(),
+                metrics.getLastSolveTime() / 1e6, metrics.getUnconvergedSolves(), metrics.getInterruptedSolves(),
+                metrics.getNanRetries(), metrics.getRebuilds(), metrics.getTimeSinceStructureChange() / 1_000_000_000L));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity;
+
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+import org.patryk3211.powergrid.collections.ModdedConfigs;
+import org.patryk3211.powergrid.electricity.base.ElectricBehaviour;
+import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+import org.patryk3211.powergrid.electricity.sim.SolveScheduler;
+
+import java.util.List;
+
+/**
+ * Decides which networks of a world are solved each tick, see {@link SolveScheduler}.
+ * Networks without observers whose blocks are all far from every player (or in lazily loaded
+ * chunks) are solved at a reduced rate.
+ */
+public class NetworkScheduler {
+    private static final SolveScheduler scheduler = new SolveScheduler();
+
+    /**
+     * Pick the networks solved this tick out of networks which need a calculation.
+     * @param budget Solve time available this tick in nanoseconds summed over all solver threads, 0 for no limit
+     * @return Networks to solve, in the order they should be solved
+     */
+    public static List<ElectricalNetwork> schedule(World world, List<ElectricalNetwork> networks, long budget) {
+        // Client and Ponder worlds always run at full rate, their networks are small and results are always on screen.
+        if(!(world instanceof ServerWorld))
+            return networks;
+        final var config = ModdedConfigs.server().electricity;
+        final int distance = config.lodDistance.get();
+        final int interval = distance > 0 ? config.lodInterval.get() : 1;
+        return scheduler.schedule(networks, world.getTime(), interval, budget, network -> isActive(world, network, distance));
+    }
+
+    private static boolean isActive(World world, ElectricalNetwork network, int distance) {
+        var players = world.getPlayers();
+        return SolveScheduler.isActive(network, ElectricBehaviour.NodeGroup.class,
+                block -> world.shouldTickBlockPos(block.getPos()),
+                ElectricBehaviour.NodeGroup::isObserver,
+                block -> {
+                    for(var player : players) {
+                        if(block.getPos().isWithinDistance(player.getPos(), distance))
+                            return true;
+                    }
+                    return false;
+                });
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity;
+
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Util;
+import net.minecraft.world.World;
+import org.patryk3211.powergrid.PowerGrid;
+import org.patryk3211.powergrid.collections.ModdedConfigs;
+import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+import org.patryk3211.powergrid.electricity.sim.NetworkSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Saves snapshots of electrical networks into the game directory, they can be solved again outside
+ * the game with the replay task of the benchmark source set.
+ */
+public class NetworkSnapshots {
+    // Slow networks tend to stay slow, automatic captures are limited to one per minute.
+    private static final long AUTOMATIC_COOLDOWN = 60_000_000_000L;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private static long lastAutomatic = System.nanoTime() - AUTOMATIC_COOLDOWN;
+
+    public static Path directory() {
+        return FabricLoader.getInstance().getGameDir().resolve(PowerGrid.MOD_ID).resolve("snapshots");
+    }
+
+    private static Path file(NetworkSnapshot snapshot) {
+        return directory().resolve("network-" + LocalDateTime.now().format(FILE_TIME) + "-" + snapshot.nodeCount() + ".pgsnap");
+    }
+
+    // Captures the network and writes it on the calling thread.
+    public static Path save(ElectricalNetwork network) throws IOException {
+        var snapshot = NetworkSnapshot.capture(network);
+        var path = file(snapshot);
+        Files.createDirectories(path.getParent());
+        snapshot.save(path);
+        return path;
+    }
+
+    /**
+     * Captures the slowest network which went over the configured solve time threshold. Has to be called
+     * on the world thread once results are applied, the file is written in the background. Only networks
+     * of server worlds are captured.
+     */
+    static void captureSlow(World world, List<ElectricalNetwork> networks) {
+        if(!(world instanceof ServerWorld))
+            return;
+        var threshold = (long) (ModdedConfigs.server().electricity.snapshotThreshold.get() * 1_000_000);
+        if(threshold <= 0 || System.nanoTime() - lastAutomatic < AUTOMATIC_COOLDOWN)
+            return;
+        ElectricalNetwork slowest = null;
+        for(var network : networks) {
+            if(network.getSolveTime() > threshold && (slowest == null || network.getSolveTime() > slowest.getSolveTime()))
+                slowest = network;
+        }
+        if(slowest == null)
+            return;
+        lastAutomatic = System.nanoTime();
+
+        final NetworkSnapshot snapshot;
+        try {
+            snapshot = NetworkSnapshot.capture(slowest);
+        } catch(IllegalStateException e) {
+            PowerGrid.LOGGER.warn("Failed to capture a slow electrical network", e);
+            return;
+        }
+        final var path = file(snapshot);
+        final var solveTime = slowest.getSolveTime();
+        Util.getIoWorkerExecutor().execute(() -> {
+            try {
+                Files.createDirectories(path.getParent());
+                snapshot.save(path);
+                PowerGrid.LOGGER.info("Electrical network with {} nodes took {} ms to solve, saved snapshot to {}",
+                        snapshot.nodeCount(), String.format("%.2f", solveTime / 1e6), path);
+            } catch(IOException e) {
+                PowerGrid.LOGGER.warn("Failed to save electrical network snapshot", e);
+            }
+        });
+    }
+}
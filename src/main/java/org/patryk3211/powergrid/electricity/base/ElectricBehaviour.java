@@ -21,10 +21,13 @@ import com.simibubi.create.foundation.blockEntity.behaviour.BlockEntityBehaviour
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.nbt.NbtList;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 import net.minecraft.world.World;
 import org.jetbrains.annotations.Nullable;
+import org.patryk3211.powergrid.collections.ModdedConfigs;
 import org.patryk3211.powergrid.electricity.sim.ElectricWire;
 import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
 import org.patryk3211.powergrid.electricity.sim.node.IElectricNode;
@@ -33,11 +36,14 @@ import org.patryk3211.powergrid.electricity.wire.BlockWireEndpoint;
 import org.patryk3211.powergrid.electricity.wire.HangingWireEntity;
 import org.patryk3211.powergrid.electricity.wire.IWireEndpoint;
 import org.patryk3211.powergrid.electricity.wire.WireEntity;
+import org.patryk3211.powergrid.utility.Lang;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public class ElectricBehaviour extends BlockEntityBehaviour {
     public static final BehaviourType<ElectricBehaviour> TYPE = new BehaviourType<>();
@@ -47,6 +53,8 @@ public class ElectricBehaviour extends BlockEntityBehaviour {
     private final List<INode> internalNodes = new LinkedList<>();
     private final List<IElectricNode> externalNodes = new LinkedList<>();
     private final List<ElectricWire> internalWires = new LinkedList<>();
+    // All nodes of this block, keeps them in one network when it gets split.
+    private final NodeGroup nodeGroup = new NodeGroup();
 
     private final List<List<Connection>> connections;
     private boolean destroying = false;
@@ -83,21 +91,32 @@ public class ElectricBehaviour extends BlockEntityBehaviour {
         if(externalNodes.isEmpty())
             throw new IllegalStateException("Cannot join a network if no external nodes are defined");
         if(getNetwork() == null) {
+            network.beginBatch();
             internalNodes.forEach(network::addNode);
             externalNodes.forEach(node -> {
                 if(node != null)
                     network.addNode(node);
             });
             internalWires.forEach(network::addWire);
+            network.addNodeGroup(nodeGroup);
+            network.commit();
         }
     }
 
     public void rebuildCircuit() {
+        var network = getNetwork();
         var builder = new IElectricEntity.CircuitBuilder(externalNodes, internalNodes, internalWires);
-        builder.with(getNetwork());
+        builder.with(network);
         builder.alterExternal(false);
-        builder.clear();
-        element.buildCircuit(builder);
+        if(network != null)
+            network.beginBatch();
+        try {
+            builder.clear();
+            element.buildCircuit(builder);
+        } finally {
+            if(network != null)
+                network.commit();
+        }
 
         // Break connections if external node was removed.
         for(int i = 0; i < externalNodes.size(); ++i) {
@@ -146,6 +165,7 @@ public class ElectricBehaviour extends BlockEntityBehaviour {
                     network.removeNode(node);
             });
             internalNodes.forEach(network::removeNode);
+            network.removeNodeGroup(nodeGroup);
         }
     }
 
@@ -209,6 +229,42 @@ public class ElectricBehaviour extends BlockEntityBehaviour {
         return connections;
     }
 
+    /**
+     * Solver health of the block's network for the goggle overlay, shown while sneaking if enabled in the server config.
+     * @return True if anything was added
+     */
+    public boolean addNetworkMetrics(List<Text> tooltip, boolean isPlayerSneaking) {
+        if(!isPlayerSneaking || !ModdedConfigs.server().electricity.networkMetricsOverlay.get())
+            return false;
+        var network = getNetwork();
+        if(network == null)
+            return false;
+        var metrics = network.getMetrics();
+
+        Lang.translate("gui.network.info_header").forGoggles(tooltip);
+        metric(tooltip, "size", String.format("%d (%d compacted), %d nonzeros",
+                network.size(), network.getCompactedNodeCount(), network.getNonZeroCount()));
+        metric(tooltip, "solver", String.format("%s, %d iterations (%.1f average)",
+                network.getSolverType(), metrics.getLastIterations(), metrics.getAverageIterations()));
+        metric(tooltip, "residual", String.format("%.2e", metrics.getLastResidual()));
+        metric(tooltip, "solve_time", String.format("%.3f ms", metrics.getLastSolveTime() / 1e6));
+        metric(tooltip, "failures", String.format("%d / %d / %d",
+                metrics.getUnconvergedSolves(), metrics.getNanRetries(), metrics.getInterruptedSolves()));
+        metric(tooltip, "rebuilds", String.format("%d, %d s since topology change",
+                metrics.getRebuilds(), metrics.getTimeSinceStructureChange() / 1_000_000_000L));
+        return true;
+    }
+
+    private static void metric(List<Text> tooltip, String key, String value) {
+        Lang.builder().translate("gui.network." + key)
+                .style(Formatting.GRAY)
+                .forGoggles(tooltip);
+        Lang.builder()
+                .text(value)
+                .style(Formatting.AQUA)
+                .forGoggles(tooltip, 1);
+    }
+
     public void breakConnections() {
         if(destroying)
             return;
@@ -273,4 +329,23 @@ public class ElectricBehaviour extends BlockEntityBehaviour {
             }
         }
     }
+
+    /**
+     * Nodes of a single block registered with the network, also lets the network
+     * scheduler find the block position and observers of a network.
+     */
+    public class NodeGroup implements Iterable<INode> {
+        @Override
+        public Iterator<INode> iterator() {
+            return Stream.<INode>concat(externalNodes.stream(), internalNodes.stream()).iterator();
+        }
+
+        public BlockPos getPos() {
+            return ElectricBehaviour.this.getPos();
+        }
+
+        public boolean isObserver() {
+            return element.isSimulationObserver();
+        }
+    }
 }
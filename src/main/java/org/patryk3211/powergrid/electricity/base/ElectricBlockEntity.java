@@ -15,16 +15,18 @@
  */
 package org.patryk3211.powergrid.electricity.base;
 
+import com.simibubi.create.content.equipment.goggles.IHaveGoggleInformation;
 import com.simibubi.create.foundation.blockEntity.SmartBlockEntity;
 import com.simibubi.create.foundation.blockEntity.behaviour.BlockEntityBehaviour;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntityType;
+import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
-public abstract class ElectricBlockEntity extends SmartBlockEntity implements IElectricEntity {
+public abstract class ElectricBlockEntity extends SmartBlockEntity implements IElectricEntity, IHaveGoggleInformation {
     protected ElectricBehaviour electricBehaviour;
     protected ThermalBehaviour thermalBehaviour;
 
@@ -56,6 +58,12 @@ public abstract class ElectricBlockEntity extends SmartBlockEntity implements IE
         return electricBehaviour;
     }
 
+    // Blocks which add their own information call `addNetworkMetrics()` at the end of their tooltip.
+    @Override
+    public boolean addToGoggleTooltip(List<Text> tooltip, boolean isPlayerSneaking) {
+        return electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking);
+    }
+
     @Override
     public void remove() {
         super.remove();
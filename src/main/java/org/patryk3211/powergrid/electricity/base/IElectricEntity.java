@@ -31,6 +31,14 @@ import java.util.List;
 public interface IElectricEntity {
     void buildCircuit(CircuitBuilder builder);
 
+    /**
+     * Observers act on the results of their network every tick (gauges, machines driving kinetic networks).
+     * Network with an observer is always simulated at full rate, even when no player is near.
+     */
+    default boolean isSimulationObserver() {
+        return false;
+    }
+
     class CircuitBuilder {
         private ElectricalNetwork network;
         private final List<IElectricNode> externalNodes;
@@ -30,6 +30,7 @@ import net.minecraft.registry.entry.RegistryEntry;
 import net.minecraft.text.Text;
 import net.minecraft.world.World;
 import org.patryk3211.powergrid.collections.ModdedDamageTypes;
+import org.patryk3211.powergrid.utility.TickProfiler;
 
 public class ThermalBehaviour extends BlockEntityBehaviour {
     public static final BehaviourType<ThermalBehaviour> TYPE = new BehaviourType<>("thermal");
@@ -96,6 +97,15 @@ public class ThermalBehaviour extends BlockEntityBehaviour {
 
     @Override
     public void tick() {
+        var start = TickProfiler.start(getWorld());
+        try {
+            tickThermal();
+        } finally {
+            TickProfiler.end(TickProfiler.Subsystem.THERMAL, blockEntity, start);
+        }
+    }
+
+    private void tickThermal() {
         super.tick();
 
         if(firstTick) {
@@ -113,6 +113,7 @@ public class CreativeResistorBlockEntity extends ElectricBlockEntity implements
                 .add(Unit.POWER.get())
                 .style(Formatting.YELLOW)
                 .forGoggles(tooltip, 1);
+        electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking);
         return true;
     }
 
@@ -173,6 +173,7 @@ public class CreativeSourceBlockEntity extends ElectricBlockEntity implements IH
                 .style(Formatting.GREEN)
                 .forGoggles(tooltip, 1);
 
+        electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking);
         return true;
     }
 
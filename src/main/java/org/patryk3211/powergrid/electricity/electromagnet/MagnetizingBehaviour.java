@@ -28,6 +28,7 @@ import net.minecraft.util.math.Box;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import org.patryk3211.powergrid.collections.ModdedSoundEvents;
+import org.patryk3211.powergrid.utility.TickProfiler;
 
 import java.util.List;
 
@@ -112,6 +113,15 @@ public class MagnetizingBehaviour extends BeltProcessingBehaviour {
 
     @Override
     public void tick() {
+        var start = TickProfiler.start(getWorld());
+        try {
+            tickMagnetizing();
+        } finally {
+            TickProfiler.end(TickProfiler.Subsystem.MAGNETIZING, blockEntity, start);
+        }
+    }
+
+    private void tickMagnetizing() {
         super.tick();
 
         var world = getWorld();
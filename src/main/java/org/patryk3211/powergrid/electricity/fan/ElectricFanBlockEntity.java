@@ -47,6 +47,8 @@ public class ElectricFanBlockEntity extends ElectricBlockEntity implements IAirC
     protected boolean updateAirFlow;
 
     private ElectricWire motor;
+    // Updated from motor current changes, air current code reads the speed many times per tick.
+    private float speed;
     private float prevSpeed;
 
     public ElectricFanBlockEntity(BlockEntityType<?> type, BlockPos pos, BlockState state) {
@@ -91,7 +93,11 @@ public class ElectricFanBlockEntity extends ElectricBlockEntity implements IAirC
 
     @Override
     public float getSpeed() {
-        var speed = motor.current() * 64f;
+        return speed;
+    }
+
+    private static float motorSpeed(float current) {
+        var speed = current * 64f;
         if(Math.abs(speed) < 1)
             return 0;
         if(speed > 256) speed = 256;
@@ -187,5 +193,8 @@ public class ElectricFanBlockEntity extends ElectricBlockEntity implements IAirC
     public void buildCircuit(CircuitBuilder builder) {
         builder.setTerminalCount(2);
         motor = builder.connect(ElectricFanBlock.resistance(), builder.terminalNode(0), builder.terminalNode(1));
+        // Speed resolution is 1/64 of an ampere.
+        var subscription = motor.subscribeCurrent(1 / 128f, current -> speed = motorSpeed(current));
+        speed = motorSpeed(subscription.getValue());
     }
 }
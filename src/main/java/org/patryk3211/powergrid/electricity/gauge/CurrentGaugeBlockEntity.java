@@ -30,6 +30,7 @@ import java.util.List;
 
 public class CurrentGaugeBlockEntity extends GaugeBlockEntity {
     private ElectricWire wire;
+    private float lostPower;
 
     public CurrentGaugeBlockEntity(BlockEntityType<?> type, BlockPos pos, BlockState state) {
         super(type, pos, state);
@@ -37,14 +38,7 @@ public class CurrentGaugeBlockEntity extends GaugeBlockEntity {
 
     @Override
     public void tick() {
-        var current = Math.abs(getValue());
-        if(current > maxValue) {
-            dialTarget = 1.125f;
-        } else {
-            dialTarget = current / maxValue;
-        }
-
-        applyLostPower(wire.power());
+        applyLostPower(lostPower);
         super.tick();
     }
 
@@ -59,6 +53,14 @@ public class CurrentGaugeBlockEntity extends GaugeBlockEntity {
         var node1 = builder.addExternalNode();
         var node2 = builder.addExternalNode();
         wire = builder.connect(resistance, node1, node2);
+        var subscription = wire.subscribeCurrent(changeThreshold(), this::onValueChanged);
+        onValueChanged(subscription.getValue());
+    }
+
+    @Override
+    protected void onValueChanged(float value) {
+        super.onValueChanged(value);
+        lostPower = (float) (value * value * wire.getResistance());
     }
 
     @Override
@@ -102,6 +104,7 @@ public class CurrentGaugeBlockEntity extends GaugeBlockEntity {
                 .style(measurementColor(Math.abs(current)))
                 .forGoggles(tooltip, 1);
 
+        electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking);
         return true;
     }
 }
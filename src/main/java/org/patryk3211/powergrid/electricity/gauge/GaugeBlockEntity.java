@@ -49,6 +49,11 @@ public abstract class GaugeBlockEntity extends ElectricBlockEntity implements IH
     public void tick() {
         super.tick();
         if(!Float.isNaN(dialTarget)) {
+            // Dial at rest stays still until the measured value changes.
+            if(dialTarget <= 1 && Math.abs(dialTarget - dialState) < 1e-4f) {
+                prevDialState = dialState = dialTarget;
+                return;
+            }
             prevDialState = dialState;
             dialState += (dialTarget - dialState) * .125f;
             if (dialState > 1 && world.random.nextFloat() < 1 / 2f)
@@ -58,6 +63,32 @@ public abstract class GaugeBlockEntity extends ElectricBlockEntity implements IH
 
     public abstract float getValue();
 
+    // Circuit is built by the super constructor, before `maxValue` is assigned.
+    private float gaugeMaxValue() {
+        return ((IGaugeBlock) getCachedState().getBlock()).getMaxValue();
+    }
+
+    // Smallest change of the measured value which moves the dial.
+    protected float changeThreshold() {
+        return gaugeMaxValue() * 0.001f;
+    }
+
+    // Called when the solved value moves by more than `changeThreshold()`, gauges don't poll the circuit every tick.
+    protected void onValueChanged(float value) {
+        var max = gaugeMaxValue();
+        var magnitude = Math.abs(value);
+        if(magnitude > max) {
+            dialTarget = 1.125f;
+        } else {
+            dialTarget = magnitude / max;
+        }
+    }
+
+    @Override
+    public boolean isSimulationObserver() {
+        return true;
+    }
+
     @Override
     public boolean addToGoggleTooltip(List<Text> tooltip, boolean isPlayerSneaking) {
         // Use default Create header here.
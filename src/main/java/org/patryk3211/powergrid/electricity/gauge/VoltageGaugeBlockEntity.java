@@ -34,23 +34,14 @@ public class VoltageGaugeBlockEntity extends GaugeBlockEntity {
         super(type, pos, state);
     }
 
-    @Override
-    public void tick() {
-        var potential = Math.abs(getValue());
-        if(potential > maxValue) {
-            dialTarget = 1.125f;
-        } else {
-            dialTarget = potential / maxValue;
-        }
-        super.tick();
-    }
-
     @Override
     public void buildCircuit(CircuitBuilder builder) {
         node1 = builder.addExternalNode();
         node2 = builder.addExternalNode();
         // 1 Mega-ohm "impedance".
-        builder.connect(1e6f, node1, node2);
+        var wire = builder.connect(1e6f, node1, node2);
+        var subscription = wire.subscribePotentialDifference(changeThreshold(), this::onValueChanged);
+        onValueChanged(subscription.getValue());
     }
 
     @Override
@@ -94,6 +85,7 @@ public class VoltageGaugeBlockEntity extends GaugeBlockEntity {
                 .style(measurementColor(Math.abs(potential)))
                 .forGoggles(tooltip, 1);
 
+        electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking);
         return true;
     }
 }
@@ -114,6 +114,7 @@ public class HeaterBlockEntity extends ElectricBlockEntity implements IHaveGoggl
                 .style(temperatureColor(temperature))
                 .forGoggles(tooltip, 1);
 
+        electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking);
         return true;
     }
 }
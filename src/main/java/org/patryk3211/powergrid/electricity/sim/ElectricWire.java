@@ -23,6 +23,9 @@ public class ElectricWire {
     public final IElectricNode node2;
 
     protected ElectricalNetwork network;
+    private ResultSubscribers subscribers;
+    // Position of the wire in the network's published results.
+    int resultIndex = -1;
 
     public ElectricWire(double resistance, IElectricNode node1, IElectricNode node2) {
         if(resistance == 0)
@@ -63,14 +66,49 @@ public class ElectricWire {
     }
 
     public float current() {
+        if(network != null) {
+            var current = network.getWireCurrent(this);
+            if(!Double.isNaN(current))
+                return (float) current;
+        }
         return (float) (potentialDifference() / resistance);
     }
 
     public float power() {
+        if(network != null) {
+            var power = network.getWirePower(this);
+            if(!Double.isNaN(power))
+                return (float) power;
+        }
         var I = current();
         return (float) (I * I * resistance);
     }
 
+    private ResultSubscribers subscribers() {
+        if(subscribers == null)
+            subscribers = new ResultSubscribers();
+        return subscribers;
+    }
+
+    // Listeners are notified once a solve changes the value by more than the threshold.
+    public ResultSubscription subscribePotentialDifference(float threshold, ResultSubscription.Listener listener) {
+        return subscribers().add(this::potentialDifference, threshold, listener);
+    }
+
+    public ResultSubscription subscribeCurrent(float threshold, ResultSubscription.Listener listener) {
+        return subscribers().add(this::current, threshold, listener);
+    }
+
+    public ResultSubscription subscribePower(float threshold, ResultSubscription.Listener listener) {
+        return subscribers().add(this::power, threshold, listener);
+    }
+
+    // Called by the network after results of a solve were passed to the nodes.
+    public void resultsApplied() {
+        if(subscribers != null)
+            subscribers.update();
+    }
+
     public double conductance() {
         if(resistance == 0)
             throw new IllegalStateException("Wire resistance must not be zero");
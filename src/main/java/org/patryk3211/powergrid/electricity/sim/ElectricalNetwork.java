@@ -17,36 +17,112 @@ package org.patryk3211.powergrid.electricity.sim;
 
 import org.ejml.data.DMatrixRMaj;
 import org.patryk3211.powergrid.electricity.sim.node.*;
-import org.patryk3211.powergrid.electricity.sim.solver.BiCGSTABSolver;
 import org.patryk3211.powergrid.electricity.sim.solver.ISolver;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
 import org.slf4j.Logger;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 public class ElectricalNetwork {
     private static final double PRECISION = 1e-6;
+    // Consecutive solves which can run out of time before the best iterate is published anyway, otherwise
+    // a network whose inputs change every tick would never catch up and keep its old results forever.
+    public static final int MAX_INTERRUPTIONS = 4;
 
     private final Set<ElectricWire> wires = new HashSet<>();
     private final Set<ICouplingNode> couplings = new HashSet<>();
     private final ArrayList<INode> nodes = new ArrayList<>();
+    // Groups of nodes which have to stay in one network even without any wires between them.
+    private final Set<Iterable<? extends INode>> nodeGroups = Collections.newSetFromMap(new IdentityHashMap<>());
 
-    private final ISolver solver;
+    private final SolverType solverType;
+    private ISolver solver;
+    private ISolver generalSolver;
+    private ISolver symmetricSolver;
+    // Networks without couplings use a symmetric positive definite formulation,
+    // voltage sources are fixed values instead of unknown currents.
+    private boolean symmetric;
     private boolean[] voltageSources;
-    private DMatrixRMaj conductanceMatrix;
-    private DMatrixRMaj AMatrix;
+    private SparseMatrix conductanceMatrix;
+    private SparseMatrix AMatrix;
     private DMatrixRMaj currentMatrix;
     private int sourceCount;
 
+    // Series chains replaced by a single conductance, their inner nodes have identity rows in the system.
+    private final List<SeriesChain> chains = new ArrayList<>();
+    private final Map<ElectricWire, SeriesChain> chainWires = new IdentityHashMap<>();
+    private boolean[] eliminated;
+
     private boolean dirty;
-    private boolean recalculating;
+    // Set after a node or wire removal, the network might have fallen apart into disconnected parts.
+    private boolean splitPending;
+    // Nesting depth of `beginBatch()` and wires added during the batch.
+    private int batchDepth;
+    private final List<ElectricWire> batchWires = new ArrayList<>();
+    // Incremented on every change of the network inputs (sources, conductances and structure),
+    // a network is not solved again until its inputs change.
+    private int inputVersion;
+    private int solvedVersion = -1;
+    private int preparedVersion;
+    // Incremented on every structure change, results of a solve started before the change can't be applied.
+    private int structureVersion;
+    private int preparedStructure;
+
+    // Parameter changes made since the last prepare, applied to the matrices in one pass before the solve.
+    // Values are the parameters currently stamped into the matrices, repeated changes of one element
+    // within a tick collapse into a single difference.
+    private final Map<ElectricWire, Double> pendingConductances = new LinkedHashMap<>();
+    private final Map<VoltageSourceNode, Double> pendingVoltages = new LinkedHashMap<>();
+    private final Map<CurrentSourceNode, Double> pendingCurrents = new LinkedHashMap<>();
+
+    // System solved by `solve()`, either the network matrices or their snapshot taken by `prepare(true)`.
+    private SparseMatrix solveMatrix;
+    private SparseMatrix solveConductance;
+    private DMatrixRMaj solveVector;
+    private boolean solveSources;
+    private SparseMatrix snapshotMatrix;
+    private SparseMatrix snapshotConductance;
+    private DMatrixRMaj snapshotVector;
+
+    // Node results of the last solve, published by `applyResults()`.
+    private double[] results;
+    // Published results, nodes and wires read their values from here through their index. Node entries hold
+    // the node voltage (current of voltage sources), wire entries are computed once per publication.
+    // Dropped whenever node indices change, the nodes then keep the last values until the next publication.
+    private double[] nodeResults;
+    private ElectricWire[] resultWires;
+    private double[] wireCurrents;
+    private double[] wirePowers;
+    private boolean published;
+    private boolean resultsValid;
+    // Solve ran out of time, nodes keep their previous results until the solver finishes on a later tick.
+    private boolean interrupted;
+    // Last solve stopped at the deadline, even if its iterate was published.
+    private boolean outOfTime;
+    private int interruptions;
+    // Wall time of the last solve in nanoseconds, used to estimate the cost of the next one.
+    private long solveTime;
+    private long prepareTime;
+    private double residual = Double.NaN;
+    private DMatrixRMaj residualProduct;
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    // Raw solution of the last solve and the node order it was computed for, used as
+    // the starting point of the solver after the structure changes.
+    private DMatrixRMaj lastSolution;
+    private INode[] solvedNodes;
+    private boolean[] solvedEliminated;
+    private boolean solvedSymmetric;
 
     public static Logger LOGGER = null;
 
     public ElectricalNetwork() {
-        solver = new BiCGSTABSolver(PRECISION);
+        this(SolverType.BICGSTAB);
+    }
+
+    public ElectricalNetwork(SolverType solverType) {
+        this.solverType = solverType;
+        solver = generalSolver = solverType.create(PRECISION);
         dirty = true;
         sourceCount = 0;
     }
@@ -54,6 +130,9 @@ public class ElectricalNetwork {
     // Make sure all variables are completely rebuilt and repopulated.
     public void setDirty() {
         this.dirty = true;
+        ++inputVersion;
+        ++structureVersion;
+        metrics.recordStructureChange();
     }
 
     public void addNode(INode node) {
@@ -66,6 +145,7 @@ public class ElectricalNetwork {
     }
 
     public void addNode(IElectricNode node) {
+        detachResults();
         node.assignIndex(nodes.size());
         node.setNetwork(this);
         nodes.add(node);
@@ -81,9 +161,10 @@ public class ElectricalNetwork {
     }
 
     public void removeNode(INode node) {
-        if(nodes.get(node.getIndex()) != node)
+        if(!containsNode(node))
             // This node is not actually in this network.
             return;
+        detachResults();
 
         if(nodes.size() > 1) {
             // Move last node into the place of removed node to prevent holes in the array.
@@ -102,6 +183,7 @@ public class ElectricalNetwork {
             --sourceCount;
 
         setDirty();
+        splitPending = true;
     }
 
     public void removeNode(int index) {
@@ -119,68 +201,209 @@ public class ElectricalNetwork {
         return nodes.isEmpty();
     }
 
+    // Nodes know their index in the network, membership is checked in constant time.
+    public boolean containsNode(INode node) {
+        var index = node.getIndex();
+        return index >= 0 && index < nodes.size() && nodes.get(index) == node;
+    }
+
     public boolean isDirty() {
         return dirty;
     }
 
+    // Iterations needed by the solver during the last calculation.
+    public int getSolverIterations() {
+        return solver.getIterations();
+    }
+
+    public long getSolveTime() {
+        return solveTime;
+    }
+
+    // Time in nanoseconds the last `prepare()` took.
+    public long getPrepareTime() {
+        return prepareTime;
+    }
+
+    // Number of chain nodes eliminated from the solved system during the last rebuild.
+    public int getCompactedNodeCount() {
+        int count = 0;
+        for(var chain : chains)
+            count += chain.nodes.length;
+        return count;
+    }
+
+    public SolverType getSolverType() {
+        return solverType;
+    }
+
+    // Relative residual |b - Ax| / |b| of the system at the end of the last solve, NaN before the first solve.
+    public double getResidual() {
+        return residual;
+    }
+
+    public NetworkMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Nonzero entries of the solved system matrix, 0 if the network has no sources.
+    public int getNonZeroCount() {
+        return AMatrix == null ? 0 : AMatrix.nonZeroCount();
+    }
+
+    // Nodes, wires and couplings as they are now, used to capture snapshots.
+    List<INode> nodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    Set<ElectricWire> wires() {
+        return Collections.unmodifiableSet(wires);
+    }
+
     public void addWire(ElectricWire wire) {
-        if((wire.node1 != null && !nodes.contains(wire.node1)) || (wire.node2 != null && !nodes.contains(wire.node2)))
-            // If node of a wire is not null it must be in the network's node set.
-            throw new IllegalArgumentException("Both nodes of a wire must be part of the network");
+        if(batchDepth > 0) {
+            // Validated and added to the matrices on commit.
+            batchWires.add(wire);
+            wire.setNetwork(this);
+            wires.add(wire);
+            return;
+        }
+        validateWire(wire);
         wire.setNetwork(this);
         wires.add(wire);
 
         updateConductance(wire, wire.conductance());
     }
 
+    private void validateWire(ElectricWire wire) {
+        if((wire.node1 != null && !containsNode(wire.node1)) || (wire.node2 != null && !containsNode(wire.node2)))
+            // If node of a wire is not null it must be in the network's node set.
+            throw new IllegalArgumentException("Both nodes of a wire must be part of the network");
+    }
+
+    /**
+     * Start adding many nodes and wires at once, wire validation and matrix updates are deferred
+     * until the matching `commit()`. Batches can be nested, only the outermost commit applies them.
+     */
+    public void beginBatch() {
+        ++batchDepth;
+    }
+
+    public void commit() {
+        if(batchDepth == 0)
+            throw new IllegalStateException("Commit called without a matching beginBatch");
+        if(--batchDepth > 0)
+            return;
+        if(batchWires.isEmpty())
+            return;
+        try {
+            for(var wire : batchWires) {
+                // Wires removed during the batch are not validated.
+                if(wires.contains(wire))
+                    validateWire(wire);
+            }
+        } finally {
+            batchWires.clear();
+            // Whole system is rebuilt once instead of being updated for every wire.
+            setDirty();
+        }
+    }
+
+    // Conductance of the wire changed by `change`, the matrices are updated before the next solve.
     public void updateConductance(ElectricWire wire, double change) {
+        queueConductance(wire, wire.conductance() - change);
+    }
+
+    private void queueConductance(ElectricWire wire, double stamped) {
+        ++inputVersion;
+        // Published current is no longer valid for the changed wire, it's computed from node voltages until the next publication.
+        wire.resultIndex = -1;
         if(conductanceMatrix == null || dirty)
             return;
+        if(!chainWires.containsKey(wire) && (isEliminated(wire.node1) || isEliminated(wire.node2))) {
+            // Wire connected to an inner node of a chain, the chain doesn't exist anymore.
+            setDirty();
+            return;
+        }
+        pendingConductances.putIfAbsent(wire, stamped);
+    }
 
-        if(wire.node1 != null && wire.node2 != null) {
-            var index1 = wire.node1.getIndex();
-            var index2 = wire.node2.getIndex();
-            conductanceMatrix.add(index1, index1, change);
-            conductanceMatrix.add(index2, index2, change);
-            conductanceMatrix.add(index1, index2, -change);
-            conductanceMatrix.add(index2, index1, -change);
-            if(!voltageSources[index1]) {
-                AMatrix.add(index1, index1, change);
-                AMatrix.add(index2, index1, -change);
-            } else {
-                var U = ((VoltageSourceNode) nodes.get(index1)).getVoltage();
-                currentMatrix.add(index1, 0, U * -change);
-                currentMatrix.add(index2, 0, U * change);
-            }
-            if(!voltageSources[index2]) {
-                AMatrix.add(index2, index2, change);
-                AMatrix.add(index1, index2, -change);
-            } else {
-                var U = ((VoltageSourceNode) nodes.get(index2)).getVoltage();
-                currentMatrix.add(index2, 0, U * -change);
-                currentMatrix.add(index1, 0, U * change);
+    private void clearPendingChanges() {
+        pendingConductances.clear();
+        pendingVoltages.clear();
+        pendingCurrents.clear();
+    }
+
+    private void applyPendingChanges() {
+        if(conductanceMatrix == null || dirty) {
+            // System is rebuilt from the current parameters.
+            clearPendingChanges();
+            return;
+        }
+
+        // Voltages go first, their right hand side terms are computed with the conductances stamped so far
+        // and conductance changes of source columns below use the new voltages.
+        for(var entry : pendingVoltages.entrySet())
+            stampVoltage(entry.getKey(), entry.getKey().getVoltage() - entry.getValue());
+        for(var entry : pendingCurrents.entrySet())
+            currentMatrix.add(entry.getKey().getIndex(), 0, entry.getKey().getCurrent() - entry.getValue());
+
+        Set<SeriesChain> changedChains = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(var entry : pendingConductances.entrySet()) {
+            var wire = entry.getKey();
+            var chain = chainWires.get(wire);
+            if(chain != null) {
+                changedChains.add(chain);
+                continue;
             }
+            var change = (wires.contains(wire) ? wire.conductance() : 0) - entry.getValue();
+            if(change != 0)
+                stampConductance(wire.node1, wire.node2, change);
+        }
+        for(var chain : changedChains) {
+            // Only the series conductance of the whole chain is part of the system.
+            var conductance = chain.seriesConductance();
+            var change = conductance - chain.conductance;
+            chain.conductance = conductance;
+            if(!chain.isLoop() && change != 0)
+                stampConductance(chain.start, chain.end, change);
+        }
+        clearPendingChanges();
+    }
+
+    private boolean isEliminated(IElectricNode node) {
+        return node != null && eliminated[node.getIndex()];
+    }
+
+    // Add conductance between two nodes, null node is the ground.
+    private void stampConductance(IElectricNode node1, IElectricNode node2, double change) {
+        if(node1 != null && node2 != null) {
+            var index1 = node1.getIndex();
+            var index2 = node2.getIndex();
+            alterConductanceMatrix(index1, index1, change);
+            alterConductanceMatrix(index2, index2, change);
+            alterConductanceMatrix(index1, index2, -change);
+            alterConductanceMatrix(index2, index1, -change);
         } else {
-            var index = wire.node1 != null ? wire.node1.getIndex() : wire.node2.getIndex();
-            conductanceMatrix.add(index, index, change);
-            if(!voltageSources[index]) {
-                AMatrix.add(index, index, change);
-            } else {
-                var U = ((VoltageSourceNode) nodes.get(index)).getVoltage();
-                currentMatrix.add(index, 0, U * change);
-            }
+            var index = node1 != null ? node1.getIndex() : node2.getIndex();
+            alterConductanceMatrix(index, index, change);
         }
     }
 
     public void alterConductanceMatrix(int row, int column, double change) {
+        ++inputVersion;
         if(conductanceMatrix == null || dirty)
             return;
         conductanceMatrix.add(row, column, change);
+        // In the symmetric formulation rows of voltage sources are fixed.
+        if(symmetric && voltageSources[row])
+            return;
         if(!voltageSources[column]) {
             AMatrix.add(row, column, change);
         } else {
+            // Voltage source columns are moved to the right hand side.
             var U = ((VoltageSourceNode) nodes.get(column)).getVoltage();
-            currentMatrix.add(column, 0, U * -change);
+            currentMatrix.add(row, 0, U * -change);
         }
     }
 
@@ -188,8 +411,15 @@ public class ElectricalNetwork {
         if(!wires.contains(wire))
             return;
         wires.remove(wire);
+        wire.resultIndex = -1;
+        splitPending = true;
 
-        updateConductance(wire, -wire.conductance());
+        if(chainWires.containsKey(wire)) {
+            // Chain is broken, nodes have to be compacted again.
+            setDirty();
+            return;
+        }
+        queueConductance(wire, wire.conductance());
     }
 
     public void updateResistance(ElectricWire wire, double oldResistance) {
@@ -200,6 +430,7 @@ public class ElectricalNetwork {
     }
 
     public void addNode(ICouplingNode coupling) {
+        detachResults();
         coupling.assignIndex(nodes.size());
         coupling.setNetwork(this);
         couplings.add(coupling);
@@ -208,145 +439,757 @@ public class ElectricalNetwork {
     }
 
     public void updateVoltage(VoltageSourceNode node, double oldVoltage) {
+        ++inputVersion;
         if(conductanceMatrix == null || dirty)
             return;
+        pendingVoltages.putIfAbsent(node, oldVoltage);
+    }
 
-        var diff = node.getVoltage() - oldVoltage;
+    private void stampVoltage(VoltageSourceNode node, double diff) {
+        if(diff == 0)
+            return;
         var index = node.getIndex();
 
-        for(int i = 0; i < nodes.size(); ++i) {
-            currentMatrix.add(i, 0, -diff * conductanceMatrix.get(i, index));
+        // Conductance matrix has a symmetric structure, nonzero rows of the column
+        // are the same as nonzero columns of the row.
+        var rowColumns = conductanceMatrix.rowColumns(index);
+        for(int j = 0; j < conductanceMatrix.rowLength(index); ++j) {
+            var i = rowColumns[j];
+            if(!symmetric || !voltageSources[i])
+                currentMatrix.add(i, 0, -diff * conductanceMatrix.get(i, index));
         }
+        if(symmetric)
+            currentMatrix.add(index, 0, diff);
     }
 
     public void updateCurrent(CurrentSourceNode node, float oldCurrent) {
+        ++inputVersion;
         if(currentMatrix == null || dirty)
             return;
-
-        var diff = node.getCurrent() - oldCurrent;
-        currentMatrix.add(node.getIndex(), 0, diff);
+        pendingCurrents.putIfAbsent(node, (double) oldCurrent);
     }
 
     private void populateConductanceMatrix() {
         conductanceMatrix.zero();
         List<ElectricWire> staleWires = new ArrayList<>();
         for(var wire : wires) {
-            var G = wire.conductance();
-            if(wire.node1 != null && wire.node2 != null) {
-                var index1 = wire.node1.getIndex();
-                var index2 = wire.node2.getIndex();
-                if(!nodes.contains(wire.node1) || !nodes.contains(wire.node2)) {
-                    if(LOGGER != null)
-                        LOGGER.warn("Dropped a stale wire (wire nodes not part of this network).");
-                    staleWires.add(wire);
-                    continue;
-                }
-                conductanceMatrix.add(index1, index1, G);
-                conductanceMatrix.add(index2, index2, G);
-                conductanceMatrix.add(index1, index2, -G);
-                conductanceMatrix.add(index2, index1, -G);
-            } else {
-                var index = wire.node1 != null ? wire.node1.getIndex() : wire.node2.getIndex();
-                conductanceMatrix.add(index, index, G);
+            if((wire.node1 != null && !containsNode(wire.node1)) || (wire.node2 != null && !containsNode(wire.node2))) {
+                if(LOGGER != null)
+                    LOGGER.warn("Dropped a stale wire (wire nodes not part of this network).");
+                staleWires.add(wire);
             }
         }
-
         staleWires.forEach(wires::remove);
+
+        compactSeriesChains();
+        for(var wire : wires) {
+            if(chainWires.containsKey(wire))
+                continue;
+            addConductance(wire.node1, wire.node2, wire.conductance());
+        }
+        for(var chain : chains) {
+            chain.conductance = chain.seriesConductance();
+            if(!chain.isLoop())
+                addConductance(chain.start, chain.end, chain.conductance);
+        }
+
         for(var node : couplings) {
             node.couple(conductanceMatrix);
         }
 
         AMatrix.setTo(conductanceMatrix);
+        // Eliminated nodes are reconstructed after the solve, their unknowns are fixed at zero.
+        for(int i = 0; i < eliminated.length; ++i) {
+            if(eliminated[i])
+                AMatrix.set(i, i, 1);
+        }
+    }
+
+    private void addConductance(IElectricNode node1, IElectricNode node2, double G) {
+        if(node1 != null && node2 != null) {
+            var index1 = node1.getIndex();
+            var index2 = node2.getIndex();
+            conductanceMatrix.add(index1, index1, G);
+            conductanceMatrix.add(index2, index2, G);
+            conductanceMatrix.add(index1, index2, -G);
+            conductanceMatrix.add(index2, index1, -G);
+        } else {
+            var index = node1 != null ? node1.getIndex() : node2.getIndex();
+            conductanceMatrix.add(index, index, G);
+        }
+    }
+
+    private static IElectricNode otherEnd(ElectricWire wire, IElectricNode node) {
+        return wire.node1 == node ? wire.node2 : wire.node1;
+    }
+
+    /**
+     * Find chains of wires connected through plain nodes with exactly two wire ends. Inner nodes of
+     * such chains only pass the current through, they can be eliminated from the system (series merge).
+     */
+    private void compactSeriesChains() {
+        chains.clear();
+        chainWires.clear();
+        var count = nodes.size();
+        eliminated = new boolean[count];
+
+        var degree = new int[count];
+        var firstWire = new ElectricWire[count];
+        var secondWire = new ElectricWire[count];
+        var candidate = new boolean[count];
+        for(var wire : wires) {
+            for(var node : new IElectricNode[] { wire.node1, wire.node2 }) {
+                if(node == null)
+                    continue;
+                var index = node.getIndex();
+                if(degree[index] == 0)
+                    firstWire[index] = wire;
+                else if(degree[index] == 1)
+                    secondWire[index] = wire;
+                ++degree[index];
+            }
+        }
+        for(int i = 0; i < count; ++i) {
+            var node = nodes.get(i);
+            // A wire connected to the same node on both ends would count twice.
+            candidate[i] = degree[i] == 2 && firstWire[i] != secondWire[i] && node instanceof IElectricNode
+                    && !(node instanceof VoltageSourceNode) && !(node instanceof CurrentSourceNode);
+        }
+        // Nodes used by couplings are referenced directly by their index.
+        for(var coupling : couplings) {
+            for(var node : coupling.getCoupledNodes()) {
+                if(containsNode(node))
+                    candidate[node.getIndex()] = false;
+            }
+        }
+
+        var visited = new boolean[count];
+        List<IElectricNode> startNodes = new ArrayList<>();
+        List<ElectricWire> startWires = new ArrayList<>();
+        List<IElectricNode> endNodes = new ArrayList<>();
+        List<ElectricWire> endWires = new ArrayList<>();
+        for(int i = 0; i < count; ++i) {
+            if(!candidate[i] || visited[i])
+                continue;
+            visited[i] = true;
+            var origin = (IElectricNode) nodes.get(i);
+
+            startNodes.clear();
+            startWires.clear();
+            var start = walkChain(origin, firstWire[i], candidate, visited, firstWire, secondWire, startNodes, startWires);
+            if(start == origin)
+                // Closed loop of chain nodes, there is no end to attach it to.
+                continue;
+            endNodes.clear();
+            endWires.clear();
+            var end = walkChain(origin, secondWire[i], candidate, visited, firstWire, secondWire, endNodes, endWires);
+
+            var chainNodes = new IElectricNode[startNodes.size() + 1 + endNodes.size()];
+            var chainWireArray = new ElectricWire[chainNodes.length + 1];
+            int position = 0;
+            for(int j = startNodes.size() - 1; j >= 0; --j) {
+                chainWireArray[position] = startWires.get(j + 1);
+                chainNodes[position++] = startNodes.get(j);
+            }
+            chainWireArray[position] = startWires.get(0);
+            chainNodes[position++] = origin;
+            for(int j = 0; j < endNodes.size(); ++j) {
+                chainWireArray[position] = endWires.get(j);
+                chainNodes[position++] = endNodes.get(j);
+            }
+            chainWireArray[position] = endWires.get(endWires.size() - 1);
+
+            var chain = new SeriesChain(start, end, chainNodes, chainWireArray);
+            chains.add(chain);
+            for(var node : chainNodes)
+                eliminated[node.getIndex()] = true;
+            for(var wire : chainWireArray)
+                chainWires.put(wire, chain);
+        }
+    }
+
+    /**
+     * Follow the chain from the origin through the given wire until a node which can't be eliminated.
+     * Visited inner nodes and wires are appended in order, the returned node is the chain end (null for ground).
+     */
+    private IElectricNode walkChain(IElectricNode origin, ElectricWire wire, boolean[] candidate, boolean[] visited,
+                                    ElectricWire[] firstWire, ElectricWire[] secondWire,
+                                    List<IElectricNode> chainNodes, List<ElectricWire> chainWires) {
+        var previous = origin;
+        chainWires.add(wire);
+        var current = otherEnd(wire, previous);
+        while(current != null && current != origin && candidate[current.getIndex()]) {
+            var index = current.getIndex();
+            visited[index] = true;
+            chainNodes.add(current);
+            wire = firstWire[index] == wire ? secondWire[index] : firstWire[index];
+            chainWires.add(wire);
+            previous = current;
+            current = otherEnd(wire, previous);
+        }
+        return current;
     }
 
     private void populateCurrentMatrix() {
         currentMatrix.zero();
+        for(int nodeIndex = 0; nodeIndex < nodes.size(); ++nodeIndex)
+            voltageSources[nodeIndex] = nodes.get(nodeIndex) instanceof VoltageSourceNode;
+
         for(int nodeIndex = 0; nodeIndex < nodes.size(); ++nodeIndex) {
             final var node = nodes.get(nodeIndex);
             if(node instanceof final VoltageSourceNode source) {
                 var U = source.getVoltage();
                 var index = node.getIndex();
 
-                for(int i = 0; i < nodes.size(); ++i) {
-                    currentMatrix.add(i, 0, -U * conductanceMatrix.get(i, index));
+                var rowColumns = conductanceMatrix.rowColumns(index);
+                for(int j = 0; j < conductanceMatrix.rowLength(index); ++j) {
+                    var i = rowColumns[j];
+                    if(symmetric) {
+                        // Source voltage is a known value (A[index][index] * x = U), it is moved
+                        // out of the other rows keeping the matrix symmetric.
+                        if(!voltageSources[i])
+                            currentMatrix.add(i, 0, -U * conductanceMatrix.get(i, index));
+                        AMatrix.set(index, i, 0);
+                    } else {
+                        // Source current becomes the unknown in place of the known voltage.
+                        currentMatrix.add(i, 0, -U * conductanceMatrix.get(i, index));
+                    }
                     AMatrix.set(i, index, 0);
                 }
-                AMatrix.set(index, index, -1);
-                voltageSources[nodeIndex] = true;
+                if(symmetric) {
+                    AMatrix.set(index, index, 1);
+                    currentMatrix.add(index, 0, U);
+                } else {
+                    AMatrix.set(index, index, -1);
+                }
             } else if(node instanceof final CurrentSourceNode source) {
                 currentMatrix.add(node.getIndex(), 0, source.getCurrent());
-                voltageSources[nodeIndex] = false;
-            } else {
-                voltageSources[nodeIndex] = false;
             }
         }
     }
 
+    // Current flowing out of a voltage source in the symmetric formulation, sum of currents of all its wires.
+    private double sourceCurrent(int index, DMatrixRMaj voltages) {
+        var rowColumns = solveConductance.rowColumns(index);
+        var rowValues = solveConductance.rowValues(index);
+        double current = 0;
+        for(int j = 0; j < solveConductance.rowLength(index); ++j) {
+            var i = rowColumns[j];
+            // Right hand side of a source row holds the source voltage.
+            var voltage = voltageSources[i] ? solveVector.get(i, 0) : voltages.get(i, 0);
+            current += rowValues[j] * voltage;
+        }
+        return current;
+    }
+
     public void merge(ElectricalNetwork other) {
+        other.detachResults();
+        // Elements of the other network are stamped from scratch on the rebuild.
+        other.clearPendingChanges();
+        nodes.ensureCapacity(nodes.size() + other.nodes.size());
+        beginBatch();
         other.nodes.forEach(this::addNode);
         other.wires.forEach(this::addWire);
+        commit();
+        nodeGroups.addAll(other.nodeGroups);
+        splitPending |= other.splitPending;
         // Make the other network empty.
         other.nodes.clear();
         other.wires.clear();
         other.couplings.clear();
+        other.nodeGroups.clear();
     }
 
-    public void calculate(boolean printResult, boolean printState) {
-        if(sourceCount == 0) {
-            for(var node : nodes) {
-                if(node instanceof IElectricNode enode) {
-                    enode.receiveResult(0);
+    // Nodes of the group will always be kept in the same network, the group is checked on every split.
+    public void addNodeGroup(Iterable<? extends INode> group) {
+        nodeGroups.add(group);
+    }
+
+    public void removeNodeGroup(Iterable<? extends INode> group) {
+        nodeGroups.remove(group);
+    }
+
+    public Collection<Iterable<? extends INode>> getNodeGroups() {
+        return Collections.unmodifiableSet(nodeGroups);
+    }
+
+    public boolean isSplitPending() {
+        return splitPending;
+    }
+
+    private static int findRoot(int[] parent, int index) {
+        while(parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private static void union(int[] parent, int[] componentSize, int index1, int index2) {
+        var root1 = findRoot(parent, index1);
+        var root2 = findRoot(parent, index2);
+        if(root1 == root2)
+            return;
+        if(componentSize[root1] < componentSize[root2]) {
+            var temp = root1;
+            root1 = root2;
+            root2 = temp;
+        }
+        parent[root2] = root1;
+        componentSize[root1] += componentSize[root2];
+    }
+
+    /**
+     * Split the network into its connected components. The largest component stays
+     * in this network, every other component is moved into a new network.
+     * @return Newly created networks
+     */
+    public List<ElectricalNetwork> split() {
+        splitPending = false;
+        var count = nodes.size();
+        if(count < 2)
+            return List.of();
+
+        var parent = new int[count];
+        var componentSize = new int[count];
+        for(int i = 0; i < count; ++i) {
+            parent[i] = i;
+            componentSize[i] = 1;
+        }
+
+        List<ElectricWire> staleWires = new ArrayList<>();
+        for(var wire : wires) {
+            if((wire.node1 != null && !containsNode(wire.node1)) || (wire.node2 != null && !containsNode(wire.node2))) {
+                staleWires.add(wire);
+                continue;
+            }
+            if(wire.node1 != null && wire.node2 != null)
+                union(parent, componentSize, wire.node1.getIndex(), wire.node2.getIndex());
+        }
+        staleWires.forEach(wires::remove);
+        for(var coupling : couplings) {
+            for(var node : coupling.getCoupledNodes()) {
+                if(containsNode(node))
+                    union(parent, componentSize, coupling.getIndex(), node.getIndex());
+            }
+        }
+        for(var group : nodeGroups) {
+            int first = -1;
+            for(var node : group) {
+                if(node == null || !containsNode(node))
+                    continue;
+                if(first == -1)
+                    first = node.getIndex();
+                else
+                    union(parent, componentSize, first, node.getIndex());
+            }
+        }
+
+        int largest = -1;
+        int componentCount = 0;
+        for(int i = 0; i < count; ++i) {
+            if(findRoot(parent, i) == i) {
+                ++componentCount;
+                if(largest == -1 || componentSize[i] > componentSize[largest])
+                    largest = i;
+            }
+        }
+        if(componentCount == 1)
+            return List.of();
+
+        detachResults();
+        // Nodes are redistributed in the order of their indices, the result doesn't depend on set iteration order.
+        Map<Integer, ElectricalNetwork> components = new LinkedHashMap<>();
+        var oldNodes = new ArrayList<>(nodes);
+        nodes.clear();
+        couplings.clear();
+        sourceCount = 0;
+        for(int i = 0; i < count; ++i) {
+            var root = findRoot(parent, i);
+            var network = root == largest ? this : components.computeIfAbsent(root, key -> new ElectricalNetwork(solverType));
+            network.addNode(oldNodes.get(i));
+        }
+
+        var oldWires = new ArrayList<>(wires);
+        wires.clear();
+        for(var wire : oldWires) {
+            var network = (wire.node1 != null ? wire.node1 : wire.node2).getNetwork();
+            wire.setNetwork(network);
+            network.wires.add(wire);
+        }
+
+        var oldGroups = new ArrayList<>(nodeGroups);
+        nodeGroups.clear();
+        for(var group : oldGroups) {
+            for(var node : group) {
+                if(node != null && node.getNetwork() != null && node.getNetwork().containsNode(node)) {
+                    node.getNetwork().nodeGroups.add(group);
+                    break;
                 }
             }
-            return;
         }
 
+        setDirty();
+        return new ArrayList<>(components.values());
+    }
+
+    // True if inputs changed since the last successful solve.
+    public boolean needsCalculation() {
+        return inputVersion != solvedVersion;
+    }
+
+    /**
+     * Permute the previous solution into the current node order. Nodes which were not part
+     * of the previous solve are seeded with the mean voltage of their already known neighbours.
+     */
+    private DMatrixRMaj remapSolution(DMatrixRMaj previous) {
+        var previousIndices = new IdentityHashMap<INode, Integer>(solvedNodes.length);
+        for(int i = 0; i < solvedNodes.length && i < previous.getNumRows(); ++i)
+            previousIndices.put(solvedNodes[i], i);
+
+        var count = nodes.size();
+        var guess = new DMatrixRMaj(count, 1);
+        var known = new boolean[count];
+        for(int i = 0; i < count; ++i) {
+            if(symmetric && voltageSources[i]) {
+                // Fixed value of the source row.
+                guess.set(i, 0, currentMatrix.get(i, 0));
+                known[i] = true;
+                continue;
+            }
+            if(eliminated[i]) {
+                // Identity row, solution is always zero.
+                known[i] = true;
+                continue;
+            }
+            var previousIndex = previousIndices.get(nodes.get(i));
+            // Unknowns of voltage sources have a different meaning in each formulation,
+            // eliminated nodes don't have a solved value.
+            if(previousIndex == null || solvedEliminated[previousIndex] || (voltageSources[i] && solvedSymmetric != symmetric))
+                continue;
+            var value = previous.get(previousIndex, 0);
+            if(Double.isFinite(value)) {
+                guess.set(i, 0, value);
+                known[i] = true;
+            }
+        }
+
+        for(int i = 0; i < count; ++i) {
+            if(known[i] || voltageSources[i] || nodes.get(i) instanceof ICouplingNode)
+                continue;
+            var rowColumns = conductanceMatrix.rowColumns(i);
+            double sum = 0;
+            int neighbours = 0;
+            for(int j = 0; j < conductanceMatrix.rowLength(i); ++j) {
+                var column = rowColumns[j];
+                if(column == i || nodes.get(column) instanceof ICouplingNode)
+                    continue;
+                if(voltageSources[column]) {
+                    sum += ((VoltageSourceNode) nodes.get(column)).getVoltage();
+                    ++neighbours;
+                } else if(known[column]) {
+                    sum += guess.get(column, 0);
+                    ++neighbours;
+                }
+            }
+            if(neighbours > 0) {
+                // Seeded node can also seed the following new nodes.
+                guess.set(i, 0, sum / neighbours);
+                known[i] = true;
+            }
+        }
+        return guess;
+    }
+
+    /**
+     * First phase of a calculation, rebuilds the system if the structure changed.
+     * Has to be called on the thread which modifies the network.
+     * @return True if the network has to be solved
+     */
+    public boolean prepare() {
+        return prepare(false);
+    }
+
+    /**
+     * Prepare the network for a solve which runs concurrently with changes to the network.
+     * @param snapshot Solve a copy of the system, the network can be modified while `solve()` runs
+     * @return True if the network has to be solved
+     */
+    public boolean prepare(boolean snapshot) {
+        if(!needsCalculation())
+            return false;
+        var start = System.nanoTime();
+        prepareSystem(false);
+        if(snapshot && solveSources) {
+            if(snapshotMatrix == null) {
+                snapshotMatrix = new SparseMatrix(AMatrix.size());
+                snapshotConductance = new SparseMatrix(conductanceMatrix.size());
+                snapshotVector = new DMatrixRMaj(currentMatrix.getNumRows(), 1);
+            }
+            // Only changed values are copied into the snapshot, solvers see the same structure as before.
+            snapshotMatrix.setTo(AMatrix);
+            snapshotConductance.setTo(conductanceMatrix);
+            snapshotVector.setTo(currentMatrix);
+            solveMatrix = snapshotMatrix;
+            solveConductance = snapshotConductance;
+            solveVector = snapshotVector;
+        }
+        prepareTime = System.nanoTime() - start;
+        return true;
+    }
+
+    private void prepareSystem(boolean printState) {
+        applyPendingChanges();
+        preparedVersion = inputVersion;
+        preparedStructure = structureVersion;
         var nodeCount = nodes.size();
-        if(conductanceMatrix == null || dirty || conductanceMatrix.getNumRows() != nodeCount) {
-            conductanceMatrix = new DMatrixRMaj(nodeCount, nodeCount);
-            AMatrix = new DMatrixRMaj(nodeCount, nodeCount);
+        if(results == null || results.length != nodeCount)
+            results = new double[nodeCount];
+        solveSources = sourceCount > 0;
+        if(!solveSources)
+            return;
+
+        if(conductanceMatrix == null || dirty || conductanceMatrix.size() != nodeCount) {
+            var previousSolution = lastSolution;
+            conductanceMatrix = new SparseMatrix(nodeCount);
+            AMatrix = new SparseMatrix(nodeCount);
             currentMatrix = new DMatrixRMaj(nodeCount, 1);
             voltageSources = new boolean[nodeCount];
+            symmetric = couplings.isEmpty();
+            if(symmetric) {
+                if(symmetricSolver == null)
+                    symmetricSolver = solverType.createSymmetric(PRECISION);
+                solver = symmetricSolver;
+            } else {
+                solver = generalSolver;
+            }
             solver.setStateSize(nodeCount);
+            metrics.recordRebuild();
+            if(!symmetric) {
+                // Couplings split the network into circuits which are otherwise solved independently.
+                var interfaceUnknowns = new boolean[nodeCount];
+                for(var coupling : couplings)
+                    interfaceUnknowns[coupling.getIndex()] = true;
+                solver.setInterface(interfaceUnknowns);
+            }
             dirty = false;
 
             // Conductance and coupling matrices need to be fully rebuild only after a state size change,
             // individual resistance and coupling value changes are handled by `updateResistance()` and `updateCoupling()` respectively.
             populateConductanceMatrix();
             populateCurrentMatrix();
+
+            if(previousSolution != null)
+                solver.setInitialGuess(remapSolution(previousSolution));
+            solvedNodes = nodes.toArray(new INode[0]);
+            solvedEliminated = eliminated;
+            solvedSymmetric = symmetric;
         }
+        solveMatrix = AMatrix;
+        solveConductance = conductanceMatrix;
+        solveVector = currentMatrix;
+        for(var chain : chains)
+            chain.capture();
 
         if(printState) {
             System.out.println(AMatrix);
             System.out.println(currentMatrix);
         }
+    }
 
-        var result = solver.solve(AMatrix, currentMatrix);
-        if(printResult) {
-            System.out.println(result);
+    /**
+     * Second phase of a calculation, solves the system prepared by `prepare()`. Doesn't touch
+     * nodes or wires so networks can be solved on worker threads while their owner waits.
+     */
+    public void solve() {
+        solveUntil(ISolver.NO_DEADLINE);
+    }
+
+    /**
+     * Solve which stops iterating once `System.nanoTime()` passes the deadline. An interrupted
+     * solve doesn't change node results and the next solve resumes from the current iterate.
+     * After {@link #MAX_INTERRUPTIONS} interrupted solves in a row the iterate is published.
+     */
+    public void solveUntil(long deadline) {
+        solveSystem(false, deadline);
+    }
+
+    private void solveSystem(boolean printResult, long deadline) {
+        var start = System.nanoTime();
+        solveAttempts(printResult, deadline);
+        residual = computeResidual();
+        solveTime = System.nanoTime() - start;
+        metrics.recordSolve(solveSources ? solver.getIterations() : 0, residual, resultsValid, outOfTime, solveTime);
+    }
+
+    private double computeResidual() {
+        if(!solveSources)
+            return 0;
+        if(lastSolution == null || lastSolution.getNumRows() != solveVector.getNumRows())
+            return Double.NaN;
+        if(residualProduct == null || residualProduct.getNumRows() != solveVector.getNumRows())
+            residualProduct = new DMatrixRMaj(solveVector.getNumRows(), 1);
+        solveMatrix.mult(lastSolution, residualProduct);
+        double sum = 0, norm = 0;
+        for(int i = 0; i < residualProduct.getNumRows(); ++i) {
+            var b = solveVector.get(i, 0);
+            var r = b - residualProduct.get(i, 0);
+            sum += r * r;
+            norm += b * b;
         }
-        for(var node : nodes) {
-            if(node instanceof IElectricNode enode) {
-                float value = (float) result.get(node.getIndex(), 0);
-                if(Float.isNaN(value)) {
-                    if(!recalculating) {
-                        // Try again.
-                        solver.zero();
-                        recalculating = true;
-                        calculate();
-                        recalculating = false;
-                        break;
-                    } else {
-                        // Failed again
-                        enode.receiveResult(0);
-                    }
-                } else {
-                    enode.receiveResult(value);
+        return norm > 0 ? Math.sqrt(sum / norm) : Math.sqrt(sum);
+    }
+
+    private void solveAttempts(boolean printResult, long deadline) {
+        interrupted = false;
+        outOfTime = false;
+        if(!solveSources) {
+            interruptions = 0;
+            Arrays.fill(results, 0);
+            resultsValid = true;
+            return;
+        }
+
+        solver.setDeadline(deadline);
+        for(int attempt = 0; ; ++attempt) {
+            var result = solver.solve(solveMatrix, solveVector);
+            lastSolution = result;
+            if(!solver.hasConverged() && deadline != ISolver.NO_DEADLINE && System.nanoTime() - deadline >= 0) {
+                outOfTime = true;
+                // Iterate which blew up can't be resumed or published.
+                boolean blewUp = hasNaN(result);
+                if(blewUp)
+                    solver.zero();
+                if(blewUp || ++interruptions < MAX_INTERRUPTIONS) {
+                    interrupted = true;
+                    resultsValid = false;
+                    return;
                 }
+                // Published below as an unconverged result, solving continues from it on the next tick.
             }
+            interruptions = 0;
+            if(printResult) {
+                System.out.println(result);
+            }
+            boolean failed = false;
+            for(int index = 0; index < results.length; ++index) {
+                double value = symmetric && voltageSources[index] ? sourceCurrent(index, result) : result.get(index, 0);
+                if(Double.isNaN(value)) {
+                    failed = true;
+                    value = 0;
+                }
+                results[index] = value;
+            }
+            if(!failed) {
+                for(var chain : chains)
+                    chain.reconstruct(result, results);
+                // Unconverged solution is not stored as final, next calculation will continue iterating.
+                resultsValid = solver.hasConverged();
+                return;
+            }
+            if(attempt > 0) {
+                // Failed again
+                resultsValid = false;
+                return;
+            }
+            // Try again.
+            metrics.recordRetry();
+            solver.zero();
+        }
+    }
+
+    private static boolean hasNaN(DMatrixRMaj vector) {
+        for(int i = 0; i < vector.getNumRows(); ++i) {
+            if(Double.isNaN(vector.get(i, 0)))
+                return true;
+        }
+        return false;
+    }
+
+    // Last phase of a calculation, publishes results to nodes and wires. Has to be called on the thread which modifies the network.
+    public void applyResults() {
+        // Nodes were added or removed during the solve, the network will be prepared again.
+        if(preparedStructure != structureVersion || interrupted)
+            return;
+        // Buffers are swapped, the next solve writes into the previously published one.
+        var buffer = nodeResults;
+        nodeResults = results;
+        results = buffer;
+        published = true;
+        publishWires();
+
+        // Subscribers are notified once every value is published, wire values depend on two nodes.
+        for(var node : nodes) {
+            if(node instanceof IElectricNode enode)
+                enode.resultsApplied();
+        }
+        for(var wire : resultWires)
+            wire.resultsApplied();
+        if(resultsValid)
+            solvedVersion = preparedVersion;
+    }
+
+    private void publishWires() {
+        final int count = wires.size();
+        if(resultWires == null || resultWires.length != count) {
+            resultWires = new ElectricWire[count];
+            wireCurrents = new double[count];
+            wirePowers = new double[count];
+        }
+        int index = 0;
+        for(var wire : wires) {
+            wire.resultIndex = index;
+            resultWires[index] = wire;
+            // Open switches have zero conductance and carry no current.
+            var current = wire.potentialDifference() * wire.conductance();
+            wireCurrents[index] = current;
+            wirePowers[index] = current * current * wire.getResistance();
+            ++index;
+        }
+    }
+
+    // Node indices are about to change, published values are pushed into the nodes.
+    private void detachResults() {
+        if(!published)
+            return;
+        published = false;
+        for(var node : nodes) {
+            if(node instanceof IElectricNode enode)
+                enode.receiveResult((float) nodeResults[node.getIndex()]);
         }
     }
 
+    // Published result of a node of this network, NaN if there is none.
+    public double getResult(INode node) {
+        if(!published || !containsNode(node))
+            return Double.NaN;
+        return nodeResults[node.getIndex()];
+    }
+
+    private boolean hasWireResult(ElectricWire wire) {
+        var index = wire.resultIndex;
+        return published && index >= 0 && index < resultWires.length && resultWires[index] == wire;
+    }
+
+    // Current of the wire at the last publication, NaN if there is none.
+    public double getWireCurrent(ElectricWire wire) {
+        return hasWireResult(wire) ? wireCurrents[wire.resultIndex] : Double.NaN;
+    }
+
+    public double getWirePower(ElectricWire wire) {
+        return hasWireResult(wire) ? wirePowers[wire.resultIndex] : Double.NaN;
+    }
+
+    public void calculate(boolean printResult, boolean printState) {
+        // Nothing changed since the last solve, nodes still hold valid results.
+        if(!needsCalculation() && !printResult && !printState)
+            return;
+
+        prepareSystem(printState);
+        solveSystem(printResult, ISolver.NO_DEADLINE);
+        applyResults();
+    }
+
     public void calculate() {
         calculate(false, false);
     }
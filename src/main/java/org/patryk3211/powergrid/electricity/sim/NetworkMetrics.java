@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim;
+
+/**
+ * Solver health counters of a single network. Written by the thread solving the network and read
+ * without synchronization, readers might see values of a solve which is still being recorded.
+ */
+public class NetworkMetrics {
+    private final long created = System.nanoTime();
+
+    private long solves;
+    private long totalIterations;
+    private int lastIterations;
+    private double lastResidual = Double.NaN;
+    private long lastSolveTime;
+    private long unconvergedSolves;
+    private long interruptedSolves;
+    private long nanRetries;
+    private long rebuilds;
+    private long lastStructureChange = created;
+
+    void recordSolve(int iterations, double residual, boolean converged, boolean interrupted, long time) {
+        ++solves;
+        totalIterations += iterations;
+        lastIterations = iterations;
+        lastResidual = residual;
+        lastSolveTime = time;
+        if(interrupted)
+            ++interruptedSolves;
+        else if(!converged)
+            ++unconvergedSolves;
+    }
+
+    void recordRetry() {
+        ++nanRetries;
+    }
+
+    void recordRebuild() {
+        ++rebuilds;
+    }
+
+    void recordStructureChange() {
+        lastStructureChange = System.nanoTime();
+    }
+
+    public long getSolves() {
+        return solves;
+    }
+
+    public long getTotalIterations() {
+        return totalIterations;
+    }
+
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    public double getAverageIterations() {
+        return solves == 0 ? 0 : (double) totalIterations / solves;
+    }
+
+    // Relative residual |b - Ax| / |b| at the end of the last solve.
+    public double getLastResidual() {
+        return lastResidual;
+    }
+
+    public long getLastSolveTime() {
+        return lastSolveTime;
+    }
+
+    // Solves which finished without reaching the target precision, interrupted solves are not included.
+    public long getUnconvergedSolves() {
+        return unconvergedSolves;
+    }
+
+    // Solves stopped by the tick deadline.
+    public long getInterruptedSolves() {
+        return interruptedSolves;
+    }
+
+    // Solves repeated from zero after the solution contained NaN values.
+    public long getNanRetries() {
+        return nanRetries;
+    }
+
+    // Full rebuilds of the system matrices after the network was marked dirty.
+    public long getRebuilds() {
+        return rebuilds;
+    }
+
+    // Nanoseconds since nodes or wires were last added or removed.
+    public long getTimeSinceStructureChange() {
+        return System.nanoTime() - lastStructureChange;
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim;
+
+import org.patryk3211.powergrid.electricity.sim.node.*;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Copy of the inputs of an electrical network which can be saved to a file and replayed outside the game.
+ * Holds nodes by type with their source values, wires with resistance and switch state and transformer
+ * couplings with their ratio and resistance, together with statistics of the solve it was captured after.
+ */
+public class NetworkSnapshot {
+    private static final int MAGIC = 0x50475344;
+    private static final int FORMAT_VERSION = 1;
+
+    public static final byte FLOATING = 0;
+    public static final byte VOLTAGE_SOURCE = 1;
+    public static final byte CURRENT_SOURCE = 2;
+
+    // Wire kinds, open switches keep their resistance.
+    private static final byte WIRE = 0;
+    private static final byte SWITCH_CLOSED = 1;
+    private static final byte SWITCH_OPEN = 2;
+
+    private static final int NO_NODE = -1;
+
+    public final SolverType solverType;
+    public final long solveTime;
+    public final int iterations;
+    public final double residual;
+
+    private final byte[] nodeTypes;
+    private final float[] nodeValues;
+    private final int[] wireNodes;
+    private final double[] wireResistances;
+    private final byte[] wireKinds;
+    private final List<Coupling> couplings;
+
+    private record Coupling(float ratio, float resistance, int[] nodes) {
+    }
+
+    public record Restored(ElectricalNetwork network, IElectricNode[] nodes) {
+    }
+
+    private NetworkSnapshot(SolverType solverType, long solveTime, int iterations, double residual,
+                            byte[] nodeTypes, float[] nodeValues, int[] wireNodes, double[] wireResistances,
+                            byte[] wireKinds, List<Coupling> couplings) {
+        this.solverType = solverType;
+        this.solveTime = solveTime;
+        this.iterations = iterations;
+        this.residual = residual;
+        this.nodeTypes = nodeTypes;
+        this.nodeValues = nodeValues;
+        this.wireNodes = wireNodes;
+        this.wireResistances = wireResistances;
+        this.wireKinds = wireKinds;
+        this.couplings = couplings;
+    }
+
+    /**
+     * Copies the current state of the network, has to be called on the thread which modifies it.
+     * Couplings other than transformers are not supported.
+     */
+    public static NetworkSnapshot capture(ElectricalNetwork network) {
+        var nodeIndices = new IdentityHashMap<IElectricNode, Integer>();
+        var typeList = new ByteArrayOutputStream();
+        var valueList = new ArrayList<Float>();
+        var couplingList = new ArrayList<ICouplingNode>();
+        for(var node : network.nodes()) {
+            if(node instanceof ICouplingNode coupling) {
+                couplingList.add(coupling);
+                continue;
+            }
+            var enode = (IElectricNode) node;
+            nodeIndices.put(enode, nodeIndices.size());
+            if(enode instanceof VoltageSourceNode) {
+                typeList.write(VOLTAGE_SOURCE);
+                valueList.add(enode.getVoltage());
+            } else if(enode instanceof CurrentSourceNode) {
+                typeList.write(CURRENT_SOURCE);
+                valueList.add(enode.getCurrent());
+            } else {
+                typeList.write(FLOATING);
+                valueList.add(0f);
+            }
+        }
+        var nodeValues = new float[valueList.size()];
+        for(int i = 0; i < nodeValues.length; ++i)
+            nodeValues[i] = valueList.get(i);
+
+        var wires = network.wires();
+        var wireNodes = new int[wires.size() * 2];
+        var wireResistances = new double[wires.size()];
+        var wireKinds = new byte[wires.size()];
+        int index = 0;
+        for(var wire : wires) {
+            wireNodes[index * 2] = wire.node1 == null ? NO_NODE : nodeIndices.get(wire.node1);
+            wireNodes[index * 2 + 1] = wire.node2 == null ? NO_NODE : nodeIndices.get(wire.node2);
+            wireResistances[index] = wire.getResistance();
+            if(wire instanceof SwitchedWire switchedWire)
+                wireKinds[index] = switchedWire.getState() ? SWITCH_CLOSED : SWITCH_OPEN;
+            else
+                wireKinds[index] = WIRE;
+            ++index;
+        }
+
+        var couplings = new ArrayList<Coupling>(couplingList.size());
+        for(var coupling : couplingList) {
+            if(!(coupling instanceof TransformerCoupling transformer))
+                throw new IllegalStateException("Unsupported coupling type " + coupling.getClass().getName());
+            var coupled = transformer.getCoupledNodes();
+            var nodes = new int[coupled.size()];
+            for(int i = 0; i < nodes.length; ++i)
+                nodes[i] = nodeIndices.get(coupled.get(i));
+            couplings.add(new Coupling(transformer.getRatio(), transformer.getResistance(), nodes));
+        }
+
+        return new NetworkSnapshot(network.getSolverType(), network.getSolveTime(), network.getSolverIterations(),
+                network.getResidual(), typeList.toByteArray(), nodeValues, wireNodes, wireResistances, wireKinds, couplings);
+    }
+
+    public int nodeCount() {
+        return nodeTypes.length;
+    }
+
+    public int wireCount() {
+        return wireKinds.length;
+    }
+
+    public int couplingCount() {
+        return couplings.size();
+    }
+
+    // Builds a new network from the snapshot which is solved with the given solver.
+    public Restored restore(SolverType solverType) {
+        var network = new ElectricalNetwork(solverType);
+        var nodes = new IElectricNode[nodeTypes.length];
+        for(int i = 0; i < nodes.length; ++i) {
+            nodes[i] = switch(nodeTypes[i]) {
+                case VOLTAGE_SOURCE -> new VoltageSourceNode(nodeValues[i]);
+                case CURRENT_SOURCE -> new CurrentSourceNode(nodeValues[i]);
+                default -> new FloatingNode();
+            };
+        }
+
+        network.beginBatch();
+        try {
+            network.addNodes(nodes);
+            for(var coupling : couplings) {
+                var coupled = coupling.nodes();
+                var transformer = switch(coupled.length) {
+                    case 2 -> TransformerCoupling.create(coupling.ratio(), coupling.resistance(), nodes[coupled[0]], nodes[coupled[1]]);
+                    case 3 -> TransformerCoupling.create(coupling.ratio(), coupling.resistance(), nodes[coupled[0]], nodes[coupled[1]], nodes[coupled[2]]);
+                    case 4 -> TransformerCoupling.create(coupling.ratio(), coupling.resistance(), nodes[coupled[0]], nodes[coupled[1]], nodes[coupled[2]], nodes[coupled[3]]);
+                    default -> throw new IllegalStateException("Unsupported coupling with " + coupled.length + " nodes");
+                };
+                network.addNode(transformer);
+            }
+            for(int i = 0; i < wireKinds.length; ++i) {
+                var node1 = node(nodes, wireNodes[i * 2]);
+                var node2 = node(nodes, wireNodes[i * 2 + 1]);
+                var resistance = wireResistances[i];
+                network.addWire(switch(wireKinds[i]) {
+                    case SWITCH_CLOSED -> new SwitchedWire((float) resistance, node1, node2, true);
+                    case SWITCH_OPEN -> new SwitchedWire((float) resistance, node1, node2, false);
+                    default -> new ElectricWire(resistance, node1, node2);
+                });
+            }
+        } finally {
+            network.commit();
+        }
+        return new Restored(network, nodes);
+    }
+
+    private static IElectricNode node(IElectricNode[] nodes, int index) {
+        return index == NO_NODE ? null : nodes[index];
+    }
+
+    public void write(DataOutput output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeUTF(solverType.name());
+        output.writeLong(solveTime);
+        output.writeInt(iterations);
+        output.writeDouble(residual);
+
+        output.writeInt(nodeTypes.length);
+        output.write(nodeTypes);
+        for(var value : nodeValues)
+            output.writeFloat(value);
+
+        output.writeInt(wireKinds.length);
+        output.write(wireKinds);
+        for(var node : wireNodes)
+            output.writeInt(node);
+        for(var resistance : wireResistances)
+            output.writeDouble(resistance);
+
+        output.writeInt(couplings.size());
+        for(var coupling : couplings) {
+            output.writeFloat(coupling.ratio());
+            output.writeFloat(coupling.resistance());
+            output.writeByte(coupling.nodes().length);
+            for(var node : coupling.nodes())
+                output.writeInt(node);
+        }
+    }
+
+    public static NetworkSnapshot read(DataInput input) throws IOException {
+        if(input.readInt() != MAGIC)
+            throw new IOException("Not an electrical network snapshot");
+        var version = input.readInt();
+        if(version != FORMAT_VERSION)
+            throw new IOException("Unsupported snapshot version " + version);
+        SolverType solverType;
+        try {
+            solverType = SolverType.valueOf(input.readUTF());
+        } catch(IllegalArgumentException e) {
+            // Solver was removed since the snapshot was taken.
+            solverType = SolverType.BICGSTAB;
+        }
+        var solveTime = input.readLong();
+        var iterations = input.readInt();
+        var residual = input.readDouble();
+
+        var nodeTypes = new byte[input.readInt()];
+        input.readFully(nodeTypes);
+        var nodeValues = new float[nodeTypes.length];
+        for(int i = 0; i < nodeValues.length; ++i)
+            nodeValues[i] = input.readFloat();
+
+        var wireKinds = new byte[input.readInt()];
+        input.readFully(wireKinds);
+        var wireNodes = new int[wireKinds.length * 2];
+        for(int i = 0; i < wireNodes.length; ++i) {
+            wireNodes[i] = input.readInt();
+            if(wireNodes[i] < NO_NODE || wireNodes[i] >= nodeTypes.length)
+                throw new IOException("Wire references a missing node");
+        }
+        var wireResistances = new double[wireKinds.length];
+        for(int i = 0; i < wireResistances.length; ++i)
+            wireResistances[i] = input.readDouble();
+
+        var couplingCount = input.readInt();
+        var couplings = new ArrayList<Coupling>(couplingCount);
+        for(int i = 0; i < couplingCount; ++i) {
+            var ratio = input.readFloat();
+            var resistance = input.readFloat();
+            var nodes = new int[input.readUnsignedByte()];
+            for(int j = 0; j < nodes.length; ++j) {
+                nodes[j] = input.readInt();
+                if(nodes[j] < 0 || nodes[j] >= nodeTypes.length)
+                    throw new IOException("Coupling references a missing node");
+            }
+            couplings.add(new Coupling(ratio, resistance, nodes));
+        }
+        return new NetworkSnapshot(solverType, solveTime, iterations, residual,
+                nodeTypes, nodeValues, wireNodes, wireResistances, wireKinds, couplings);
+    }
+
+    // Files are compressed, wire and node arrays of large grids compress well.
+    public void save(Path path) throws IOException {
+        try(var output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))))) {
+            write(output);
+        }
+    }
+
+    public static NetworkSnapshot load(Path path) throws IOException {
+        try(var input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            return read(input);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Subscriptions of a single node or wire, they are kept by the subscribed object so that
+ * they follow it when networks merge or split.
+ */
+public class ResultSubscribers {
+    private final List<ResultSubscription> subscriptions = new ArrayList<>(1);
+
+    public ResultSubscription add(DoubleSupplier source, float threshold, ResultSubscription.Listener listener) {
+        var subscription = new ResultSubscription(source, threshold, listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    // Called by the network once new results were applied.
+    public void update() {
+        subscriptions.removeIf(ResultSubscription::isCancelled);
+        // Listener may add subscriptions, only the ones present before the update are notified.
+        for(int i = 0, count = subscriptions.size(); i < count; ++i) {
+            var subscription = subscriptions.get(i);
+            if(!subscription.isCancelled())
+                subscription.update();
+        }
+    }
+}
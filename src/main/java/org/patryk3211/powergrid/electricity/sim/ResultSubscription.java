@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Interest in a solved value of a node or a wire. The listener is called after a solve moves
+ * the value by more than the threshold away from the last value it was notified about, this way
+ * small changes accumulate until they cross the threshold instead of being lost.
+ */
+public class ResultSubscription {
+    @FunctionalInterface
+    public interface Listener {
+        void onResultChanged(float value);
+    }
+
+    private final DoubleSupplier source;
+    private final float threshold;
+    private final Listener listener;
+    private float value;
+    private boolean cancelled;
+
+    ResultSubscription(DoubleSupplier source, float threshold, Listener listener) {
+        this.source = source;
+        this.threshold = threshold;
+        this.listener = listener;
+        this.value = (float) source.getAsDouble();
+    }
+
+    // Last value passed to the listener, the value at the time of subscribing before the first notification.
+    public float getValue() {
+        return value;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void update() {
+        var current = (float) source.getAsDouble();
+        if(Math.abs(current - value) > threshold || Float.isNaN(current) != Float.isNaN(value)) {
+            value = current;
+            listener.onResultChanged(current);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim;
+
+import org.ejml.data.DMatrixRMaj;
+import org.patryk3211.powergrid.electricity.sim.node.IElectricNode;
+import org.patryk3211.powergrid.electricity.sim.node.VoltageSourceNode;
+
+/*
+ * Wires connected in series through nodes which have no other connections. The inner nodes are
+ * eliminated from the solved system, the chain is replaced by a single series conductance between
+ * its ends and the inner node voltages are reconstructed from the end voltages after the solve.
+ */
+class SeriesChain {
+    // Chain ends, null means the chain ends at the ground.
+    final IElectricNode start;
+    final IElectricNode end;
+    // Inner nodes in order from start to end, wire i connects node i - 1 and node i.
+    final IElectricNode[] nodes;
+    final ElectricWire[] wires;
+    // Series conductance currently stamped into the network matrices.
+    double conductance;
+
+    // Values captured together with the system, reconstruction can run while the network is modified.
+    private final double[] wireConductances;
+    private double startSourceVoltage;
+    private double endSourceVoltage;
+
+    SeriesChain(IElectricNode start, IElectricNode end, IElectricNode[] nodes, ElectricWire[] wires) {
+        this.start = start;
+        this.end = end;
+        this.nodes = nodes;
+        this.wires = wires;
+        this.wireConductances = new double[wires.length];
+    }
+
+    // Both ends are the same, no current flows through the chain.
+    boolean isLoop() {
+        return start == end;
+    }
+
+    double seriesConductance() {
+        double resistance = 0;
+        for(var wire : wires) {
+            var G = wire.conductance();
+            if(G == 0)
+                // Open switch breaks the chain.
+                return 0;
+            resistance += 1 / G;
+        }
+        return 1 / resistance;
+    }
+
+    void capture() {
+        for(int i = 0; i < wires.length; ++i)
+            wireConductances[i] = wires[i].conductance();
+        if(start instanceof VoltageSourceNode source)
+            startSourceVoltage = source.getVoltage();
+        if(end instanceof VoltageSourceNode source)
+            endSourceVoltage = source.getVoltage();
+    }
+
+    private static double endVoltage(IElectricNode node, double sourceVoltage, DMatrixRMaj solution) {
+        if(node == null)
+            return 0;
+        // Solution of a voltage source row is its current.
+        if(node instanceof VoltageSourceNode)
+            return sourceVoltage;
+        return solution.get(node.getIndex(), 0);
+    }
+
+    // Write inner node voltages into the results, computed from the solution of the chain ends.
+    void reconstruct(DMatrixRMaj solution, double[] results) {
+        double startVoltage = endVoltage(start, startSourceVoltage, solution);
+        if(isLoop()) {
+            for(var node : nodes)
+                results[node.getIndex()] = startVoltage;
+            return;
+        }
+        double endVoltage = endVoltage(end, endSourceVoltage, solution);
+
+        double resistance = 0;
+        int first = -1;
+        int last = -1;
+        for(int i = 0; i < wireConductances.length; ++i) {
+            if(wireConductances[i] == 0) {
+                if(first == -1)
+                    first = i;
+                last = i;
+            } else {
+                resistance += 1 / wireConductances[i];
+            }
+        }
+
+        if(first != -1) {
+            // No current, nodes take the voltage of the end they are still connected to.
+            for(int i = 0; i < nodes.length; ++i) {
+                double voltage;
+                if(i < first)
+                    voltage = startVoltage;
+                else if(i >= last)
+                    voltage = endVoltage;
+                else
+                    voltage = 0;
+                results[nodes[i].getIndex()] = voltage;
+            }
+            return;
+        }
+
+        double current = (startVoltage - endVoltage) / resistance;
+        double voltage = startVoltage;
+        for(int i = 0; i < nodes.length; ++i) {
+            voltage -= current / wireConductances[i];
+            results[nodes[i].getIndex()] = voltage;
+        }
+    }
+}
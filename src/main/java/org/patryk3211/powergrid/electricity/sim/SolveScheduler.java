@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Decides which networks are solved each tick, independent of the world they are in.
+ * <p>
+ * Simulation level of detail: inactive networks are solved only every `interval` ticks, their
+ * nodes keep the results of the last solve in between. Activity is re-evaluated every
+ * {@link #EVALUATION_INTERVAL} ticks.
+ * <p>
+ * Time budget: networks are solved in the order they started waiting, full rate networks before
+ * reduced rate ones and cheaper networks first. Networks which don't fit the budget are deferred
+ * to the next tick with their previous results and move up the queue.
+ */
+public class SolveScheduler {
+    // Evaluating activity can mean scanning every block of the network, it is only done this often.
+    public static final int EVALUATION_INTERVAL = 20;
+    private static final long NOT_WAITING = Long.MAX_VALUE;
+
+    private final Map<ElectricalNetwork, State> states = new WeakHashMap<>();
+
+    private static class State {
+        long nextEvaluation = Long.MIN_VALUE;
+        long lastSolve = Long.MIN_VALUE;
+        long waitingSince = NOT_WAITING;
+        boolean reduced;
+    }
+
+    private record Candidate(ElectricalNetwork network, State state) {
+    }
+
+    private static final Comparator<Candidate> PRIORITY = Comparator
+            .comparingLong((Candidate candidate) -> candidate.state().waitingSince)
+            .thenComparing(candidate -> candidate.state().reduced)
+            .thenComparingLong(candidate -> candidate.network().getSolveTime());
+
+    /**
+     * Pick the networks solved this tick out of networks which need a calculation.
+     * @param time Current tick
+     * @param interval Ticks between solves of an inactive network, 1 or less disables the level of detail
+     * @param budget Solve time available this tick in nanoseconds summed over all solver threads, 0 for no limit
+     * @param active Tells whether a network has to run at full rate
+     * @return Networks to solve, in the order they should be solved
+     */
+    public List<ElectricalNetwork> schedule(List<ElectricalNetwork> networks, long time, int interval, long budget, Predicate<ElectricalNetwork> active) {
+        final boolean levelOfDetail = interval > 1;
+
+        List<Candidate> due = new ArrayList<>(networks.size());
+        for(final var network : networks) {
+            var state = states.computeIfAbsent(network, key -> new State());
+            if(!levelOfDetail) {
+                state.reduced = false;
+            } else if(time >= state.nextEvaluation) {
+                state.reduced = !active.test(network);
+                state.nextEvaluation = time + EVALUATION_INTERVAL;
+            }
+            // Compared this way around since `time - lastSolve` overflows for a network which was never solved.
+            if(state.reduced && time < state.lastSolve + interval)
+                continue;
+            if(state.waitingSince == NOT_WAITING)
+                state.waitingSince = time;
+            due.add(new Candidate(network, state));
+        }
+        // Without a budget everything due is solved in network order.
+        if(budget > 0)
+            due.sort(PRIORITY);
+
+        List<ElectricalNetwork> scheduled = new ArrayList<>(due.size());
+        long spent = 0;
+        for(final var candidate : due) {
+            // Estimate is the last solve time, the first network always runs so that no network waits forever.
+            final var estimate = candidate.network().getSolveTime();
+            if(budget > 0 && !scheduled.isEmpty() && spent + estimate > budget)
+                continue;
+            spent += estimate;
+            candidate.state().lastSolve = time;
+            candidate.state().waitingSince = NOT_WAITING;
+            scheduled.add(candidate.network());
+        }
+        return scheduled;
+    }
+
+    /**
+     * Level of detail rule: a network runs at full rate if any of its blocks in a ticking chunk has an
+     * observer or a player nearby. Blocks in lazily loaded chunks don't tick, nothing reads their results.
+     * A network without any block (node groups of type `blockType`) can't be placed, it always runs at full rate.
+     */
+    public static <B> boolean isActive(ElectricalNetwork network, Class<B> blockType, Predicate<B> ticking, Predicate<B> observer, Predicate<B> nearPlayer) {
+        boolean positioned = false;
+        for(var group : network.getNodeGroups()) {
+            if(!blockType.isInstance(group))
+                continue;
+            positioned = true;
+            var block = blockType.cast(group);
+            if(!ticking.test(block))
+                continue;
+            if(observer.test(block) || nearPlayer.test(block))
+                return true;
+        }
+        return !positioned;
+    }
+}
@@ -34,6 +34,11 @@ public class CurrentSourceNode extends ElectricNode {
         if(network != null)
             network.updateCurrent(this, old);
     }
+    @Override
+    public float getVoltage() {
+        return result(voltage);
+    }
+
     @Override
     public void receiveResult(float value) {
         this.voltage = value;
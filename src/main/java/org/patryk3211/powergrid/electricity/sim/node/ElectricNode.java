@@ -16,6 +16,8 @@
 package org.patryk3211.powergrid.electricity.sim.node;
 
 import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+import org.patryk3211.powergrid.electricity.sim.ResultSubscribers;
+import org.patryk3211.powergrid.electricity.sim.ResultSubscription;
 
 public abstract class ElectricNode implements IElectricNode {
     private int matrixIndex;
@@ -24,6 +26,7 @@ public abstract class ElectricNode implements IElectricNode {
     protected float current;
 
     protected ElectricalNetwork network;
+    private ResultSubscribers subscribers;
 
     public ElectricNode() {
         voltage = 0;
@@ -58,6 +61,14 @@ public abstract class ElectricNode implements IElectricNode {
         return current;
     }
 
+    // Value published by the network, nodes not holding a published result use the value they last received.
+    protected float result(float received) {
+        if(network == null)
+            return received;
+        var value = network.getResult(this);
+        return Double.isNaN(value) ? received : (float) value;
+    }
+
     public void setVoltage(float voltage) {
         this.voltage = voltage;
     }
@@ -65,4 +76,26 @@ public abstract class ElectricNode implements IElectricNode {
     public void setCurrent(float current) {
         this.current = current;
     }
+
+    private ResultSubscribers subscribers() {
+        if(subscribers == null)
+            subscribers = new ResultSubscribers();
+        return subscribers;
+    }
+
+    @Override
+    public ResultSubscription subscribeVoltage(float threshold, ResultSubscription.Listener listener) {
+        return subscribers().add(this::getVoltage, threshold, listener);
+    }
+
+    @Override
+    public ResultSubscription subscribeCurrent(float threshold, ResultSubscription.Listener listener) {
+        return subscribers().add(this::getCurrent, threshold, listener);
+    }
+
+    @Override
+    public void resultsApplied() {
+        if(subscribers != null)
+            subscribers.update();
+    }
 }
@@ -19,6 +19,11 @@ public class FloatingNode extends ElectricNode {
     public FloatingNode() {
     }
 
+    @Override
+    public float getVoltage() {
+        return result(voltage);
+    }
+
     @Override
     public void receiveResult(float value) {
         this.voltage = value;
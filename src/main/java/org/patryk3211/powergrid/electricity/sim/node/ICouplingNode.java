@@ -15,8 +15,13 @@
  */
 package org.patryk3211.powergrid.electricity.sim.node;
 
-import org.ejml.data.DMatrixRMaj;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
+
+import java.util.List;
 
 public interface ICouplingNode extends INode {
-    void couple(DMatrixRMaj conductance);
+    void couple(SparseMatrix conductance);
+
+    // Nodes connected through this coupling, they have to stay in the same network.
+    List<IElectricNode> getCoupledNodes();
 }
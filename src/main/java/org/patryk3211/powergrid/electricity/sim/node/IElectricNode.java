@@ -15,9 +15,19 @@
  */
 package org.patryk3211.powergrid.electricity.sim.node;
 
+import org.patryk3211.powergrid.electricity.sim.ResultSubscription;
+
 public interface IElectricNode extends INode {
     float getVoltage();
     float getCurrent();
 
     void receiveResult(float value);
+
+    // Listener is notified once a solve changes the voltage by more than the threshold.
+    ResultSubscription subscribeVoltage(float threshold, ResultSubscription.Listener listener);
+    // Current is only solved for voltage source nodes.
+    ResultSubscription subscribeCurrent(float threshold, ResultSubscription.Listener listener);
+
+    // Called by the network after results of a solve were passed to all of its nodes.
+    void resultsApplied();
 }
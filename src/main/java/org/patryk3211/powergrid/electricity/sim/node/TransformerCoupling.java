@@ -15,7 +15,9 @@
  */
 package org.patryk3211.powergrid.electricity.sim.node;
 
-import org.ejml.data.DMatrixRMaj;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
+
+import java.util.List;
 
 public abstract class TransformerCoupling extends CouplingNode {
     protected float ratio;
@@ -27,11 +29,19 @@ public abstract class TransformerCoupling extends CouplingNode {
     }
 
     @Override
-    public void couple(DMatrixRMaj conductance) {
+    public void couple(SparseMatrix conductance) {
         // Unlike other fields, this one holds resistance instead of conductance.
         conductance.set(this.index, this.index, resistance);
     }
 
+    public float getRatio() {
+        return ratio;
+    }
+
+    public float getResistance() {
+        return resistance;
+    }
+
     public void setResistance(float resistance) {
         if(network != null) {
             network.alterConductanceMatrix(this.index, this.index, resistance - this.resistance);
@@ -74,7 +84,12 @@ public abstract class TransformerCoupling extends CouplingNode {
         }
 
         @Override
-        public void couple(DMatrixRMaj conductance) {
+        public List<IElectricNode> getCoupledNodes() {
+            return List.of(primary, secondary);
+        }
+
+        @Override
+        public void couple(SparseMatrix conductance) {
             super.couple(conductance);
             conductance.set(this.index, primary.getIndex(), ratio);
             conductance.set(this.index, secondary.getIndex(), -1);
@@ -96,7 +111,12 @@ public abstract class TransformerCoupling extends CouplingNode {
         }
 
         @Override
-        public void couple(DMatrixRMaj conductance) {
+        public List<IElectricNode> getCoupledNodes() {
+            return List.of(primary, secondary1, secondary2);
+        }
+
+        @Override
+        public void couple(SparseMatrix conductance) {
             super.couple(conductance);
             conductance.set(this.index, primary.getIndex(), ratio);
             conductance.set(this.index, secondary1.getIndex(), -1.0);
@@ -122,7 +142,12 @@ public abstract class TransformerCoupling extends CouplingNode {
         }
 
         @Override
-        public void couple(DMatrixRMaj conductance) {
+        public List<IElectricNode> getCoupledNodes() {
+            return List.of(primary1, primary2, secondary1, secondary2);
+        }
+
+        @Override
+        public void couple(SparseMatrix conductance) {
             super.couple(conductance);
             conductance.set(this.index, primary1.getIndex(),  ratio);
             conductance.set(this.index, primary2.getIndex(), -ratio);
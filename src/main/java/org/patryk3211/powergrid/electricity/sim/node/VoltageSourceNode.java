@@ -31,6 +31,11 @@ public class VoltageSourceNode extends ElectricNode {
             network.updateVoltage(this, old);
     }
 
+    @Override
+    public float getCurrent() {
+        return result(current);
+    }
+
     @Override
     public void receiveResult(float value) {
         this.current = value;
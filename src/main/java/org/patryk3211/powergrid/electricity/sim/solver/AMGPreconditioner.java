@@ -0,0 +1,396 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Smoothed aggregation algebraic multigrid, applied as a single V-cycle per preconditioner call.
+ * Algorithm implemented according to P. Vanek, J. Mandel, M. Brezina, "Algebraic multigrid by
+ * smoothed aggregation for second and fourth order elliptic problems".
+ *
+ * Strongly connected nodes are grouped into aggregates, every aggregate is a single unknown of
+ * the coarser level. Prolongator is the piecewise constant aggregate interpolation smoothed by
+ * one damped Jacobi step and coarse matrices are the Galerkin products P^T * A * P. Levels use
+ * damped Jacobi smoothing, the coarsest level is solved directly.
+ *
+ * Aggregates and prolongators are kept until the structure of the matrix changes, value changes
+ * only recompute the coarse matrices. Setup and every cycle cost O(nonzero count).
+ */
+public class AMGPreconditioner implements IPreconditioner {
+    // Connections weaker than this fraction of the geometric mean of their diagonals don't join aggregates.
+    private static final double STRENGTH_THRESHOLD = 0.08;
+    private static final double SMOOTHER_WEIGHT = 2.0 / 3.0;
+    // Levels this small are solved directly.
+    private static final int COARSE_SIZE = 64;
+    private static final int MAX_LEVELS = 16;
+    // Coarsening which doesn't shrink the level at least this much is not worth another level.
+    private static final double MIN_COARSENING = 0.8;
+
+    private static final int UNDECIDED = -2;
+    private static final int ISOLATED = -1;
+
+    private static class Level {
+        SparseMatrix matrix;
+        double[] inverseDiagonal;
+        // Prolongator from the next coarser level, row compressed with fine rows and coarse columns.
+        int[] prolongPointers;
+        int[] prolongColumns;
+        double[] prolongValues;
+        // Workspace
+        double[] x;
+        double[] b;
+        double[] residual;
+
+        Level(SparseMatrix matrix) {
+            final int n = matrix.size();
+            this.matrix = matrix;
+            inverseDiagonal = new double[n];
+            x = new double[n];
+            b = new double[n];
+            residual = new double[n];
+        }
+    }
+
+    private final List<Level> levels = new ArrayList<>();
+    private final SparseLUSolver coarseSolver = new SparseLUSolver();
+    private DMatrixRMaj coarseVector;
+
+    public int getLevelCount() {
+        return levels.size();
+    }
+
+    // Number of unknowns of the coarsest level.
+    public int getCoarseSize() {
+        return levels.isEmpty() ? 0 : levels.get(levels.size() - 1).matrix.size();
+    }
+
+    @Override
+    public void build(SparseMatrix A) {
+        levels.clear();
+        var level = new Level(A);
+        levels.add(level);
+        while(level.matrix.size() > COARSE_SIZE && levels.size() < MAX_LEVELS) {
+            final var fine = level.matrix;
+            final var aggregates = new int[fine.size()];
+            final int coarseSize = aggregate(fine, aggregates);
+            if(coarseSize == 0 || coarseSize > MIN_COARSENING * fine.size())
+                break;
+            smoothProlongator(level, aggregates, coarseSize);
+            var coarse = new Level(galerkinProduct(level, coarseSize));
+            levels.add(coarse);
+            level = coarse;
+        }
+
+        for(var l : levels)
+            updateDiagonal(l);
+        final var coarse = levels.get(levels.size() - 1).matrix;
+        coarseSolver.setStateSize(coarse.size());
+        coarseVector = new DMatrixRMaj(coarse.size(), 1);
+    }
+
+    @Override
+    public void update(SparseMatrix A) {
+        for(int l = 0; l < levels.size() - 1; ++l) {
+            final var coarse = levels.get(l + 1);
+            // Copy keeps the coarse structure version when only values changed, coarse factorization can be updated.
+            coarse.matrix.setTo(galerkinProduct(levels.get(l), coarse.matrix.size()));
+        }
+        for(var level : levels)
+            updateDiagonal(level);
+    }
+
+    @Override
+    public void apply(DMatrixRMaj r, DMatrixRMaj z) {
+        final var finest = levels.get(0);
+        System.arraycopy(r.data, 0, finest.b, 0, finest.b.length);
+        cycle(0);
+        System.arraycopy(finest.x, 0, z.data, 0, finest.x.length);
+    }
+
+    private static void updateDiagonal(Level level) {
+        final var A = level.matrix;
+        for(int i = 0; i < A.size(); ++i) {
+            final var diagonal = A.get(i, i);
+            // Transformer couplings without resistance have no diagonal element, leave those rows unscaled.
+            level.inverseDiagonal[i] = diagonal != 0 ? 1 / diagonal : 1;
+        }
+    }
+
+    private void cycle(int index) {
+        final var level = levels.get(index);
+        final var x = level.x;
+        final var b = level.b;
+        if(index == levels.size() - 1) {
+            System.arraycopy(b, 0, coarseVector.data, 0, b.length);
+            System.arraycopy(coarseSolver.solve(level.matrix, coarseVector).data, 0, x, 0, x.length);
+            return;
+        }
+
+        // Pre-smoothing from a zero guess.
+        final var inverseDiagonal = level.inverseDiagonal;
+        for(int i = 0; i < x.length; ++i)
+            x[i] = SMOOTHER_WEIGHT * inverseDiagonal[i] * b[i];
+
+        // Restrict the residual to the coarser level.
+        residual(level);
+        final var coarse = levels.get(index + 1);
+        final var coarseB = coarse.b;
+        Arrays.fill(coarseB, 0);
+        final var pointers = level.prolongPointers;
+        final var columns = level.prolongColumns;
+        final var values = level.prolongValues;
+        final var r = level.residual;
+        for(int i = 0; i < x.length; ++i) {
+            final var ri = r[i];
+            if(ri == 0)
+                continue;
+            for(int p = pointers[i]; p < pointers[i + 1]; ++p)
+                coarseB[columns[p]] += values[p] * ri;
+        }
+
+        cycle(index + 1);
+
+        // Interpolate the coarse correction.
+        final var coarseX = coarse.x;
+        for(int i = 0; i < x.length; ++i) {
+            double sum = 0;
+            for(int p = pointers[i]; p < pointers[i + 1]; ++p)
+                sum += values[p] * coarseX[columns[p]];
+            x[i] += sum;
+        }
+
+        // Post-smoothing, the same as pre-smoothing keeps the cycle symmetric for Conjugate Gradient.
+        residual(level);
+        for(int i = 0; i < x.length; ++i)
+            x[i] += SMOOTHER_WEIGHT * inverseDiagonal[i] * r[i];
+    }
+
+    // residual = b - A * x
+    private static void residual(Level level) {
+        final var A = level.matrix;
+        final var x = level.x;
+        final var b = level.b;
+        final var r = level.residual;
+        for(int row = 0; row < r.length; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            final var rowValues = A.rowValues(row);
+            double sum = b[row];
+            for(int i = 0; i < A.rowLength(row); ++i)
+                sum -= rowValues[i] * x[rowColumns[i]];
+            r[row] = sum;
+        }
+    }
+
+    private static boolean isStrong(double value, double diagonal1, double diagonal2) {
+        // Only rows of the conductance part (positive diagonal) take part in aggregation,
+        // voltage source and coupling rows are left to the smoother.
+        return diagonal1 > 0 && diagonal2 > 0 && Math.abs(value) >= STRENGTH_THRESHOLD * Math.sqrt(diagonal1 * diagonal2);
+    }
+
+    /*
+     * Greedy aggregation. First pass creates aggregates of nodes whose strong neighbours are all
+     * free, second pass attaches the remaining nodes to a neighbouring aggregate and the last pass
+     * groups whatever is left. Nodes without strong connections (identity rows of voltage sources
+     * and eliminated nodes) don't belong to any aggregate.
+     * @return Number of aggregates
+     */
+    private static int aggregate(SparseMatrix A, int[] aggregates) {
+        final int n = A.size();
+        final var diagonal = new double[n];
+        for(int i = 0; i < n; ++i)
+            diagonal[i] = A.get(i, i);
+        Arrays.fill(aggregates, UNDECIDED);
+
+        int count = 0;
+        for(int i = 0; i < n; ++i) {
+            if(aggregates[i] != UNDECIDED)
+                continue;
+            final var rowColumns = A.rowColumns(i);
+            final var rowValues = A.rowValues(i);
+            boolean connected = false;
+            boolean free = true;
+            for(int p = 0; p < A.rowLength(i); ++p) {
+                final var j = rowColumns[p];
+                if(j == i || !isStrong(rowValues[p], diagonal[i], diagonal[j]))
+                    continue;
+                connected = true;
+                if(aggregates[j] != UNDECIDED) {
+                    free = false;
+                    break;
+                }
+            }
+            if(!connected) {
+                aggregates[i] = ISOLATED;
+            } else if(free) {
+                aggregates[i] = count;
+                for(int p = 0; p < A.rowLength(i); ++p) {
+                    final var j = rowColumns[p];
+                    if(j != i && isStrong(rowValues[p], diagonal[i], diagonal[j]))
+                        aggregates[j] = count;
+                }
+                ++count;
+            }
+        }
+
+        final var firstPass = Arrays.copyOf(aggregates, n);
+        for(int i = 0; i < n; ++i) {
+            if(aggregates[i] != UNDECIDED)
+                continue;
+            final var rowColumns = A.rowColumns(i);
+            final var rowValues = A.rowValues(i);
+            for(int p = 0; p < A.rowLength(i); ++p) {
+                final var j = rowColumns[p];
+                if(j != i && firstPass[j] >= 0 && isStrong(rowValues[p], diagonal[i], diagonal[j])) {
+                    aggregates[i] = firstPass[j];
+                    break;
+                }
+            }
+        }
+
+        for(int i = 0; i < n; ++i) {
+            if(aggregates[i] != UNDECIDED)
+                continue;
+            aggregates[i] = count;
+            final var rowColumns = A.rowColumns(i);
+            final var rowValues = A.rowValues(i);
+            for(int p = 0; p < A.rowLength(i); ++p) {
+                final var j = rowColumns[p];
+                if(j != i && aggregates[j] == UNDECIDED && isStrong(rowValues[p], diagonal[i], diagonal[j]))
+                    aggregates[j] = count;
+            }
+            ++count;
+        }
+        return count;
+    }
+
+    // P = (I - omega * D^-1 * A) * T, where T is the piecewise constant aggregate interpolation.
+    private static void smoothProlongator(Level level, int[] aggregates, int coarseSize) {
+        final var A = level.matrix;
+        final int n = A.size();
+
+        // Gershgorin bound of the spectral radius of D^-1 * A.
+        double radius = 0;
+        for(int i = 0; i < n; ++i) {
+            final var diagonal = A.get(i, i);
+            if(diagonal <= 0)
+                continue;
+            final var rowValues = A.rowValues(i);
+            double sum = 0;
+            for(int p = 0; p < A.rowLength(i); ++p)
+                sum += Math.abs(rowValues[p]);
+            radius = Math.max(radius, sum / diagonal);
+        }
+        final double omega = radius > 0 ? (4.0 / 3.0) / radius : 0;
+
+        final var pointers = new int[n + 1];
+        var columns = new int[A.nonZeroCount() + n];
+        var values = new double[columns.length];
+        final var accumulated = new double[coarseSize];
+        final var position = new int[coarseSize];
+        Arrays.fill(position, -1);
+        final var touched = new int[coarseSize];
+        int count = 0;
+        for(int i = 0; i < n; ++i) {
+            int rowCount = 0;
+            final var diagonal = A.get(i, i);
+            if(diagonal > 0) {
+                if(aggregates[i] >= 0) {
+                    touched[rowCount++] = aggregates[i];
+                    position[aggregates[i]] = 0;
+                    accumulated[aggregates[i]] = 1;
+                }
+                final var rowColumns = A.rowColumns(i);
+                final var rowValues = A.rowValues(i);
+                final var scale = omega / diagonal;
+                for(int p = 0; p < A.rowLength(i); ++p) {
+                    final var aggregate = aggregates[rowColumns[p]];
+                    if(aggregate < 0)
+                        continue;
+                    if(position[aggregate] < 0) {
+                        position[aggregate] = 0;
+                        accumulated[aggregate] = 0;
+                        touched[rowCount++] = aggregate;
+                    }
+                    accumulated[aggregate] -= scale * rowValues[p];
+                }
+            }
+            if(count + rowCount > columns.length) {
+                columns = Arrays.copyOf(columns, Math.max(columns.length * 2, count + rowCount));
+                values = Arrays.copyOf(values, columns.length);
+            }
+            Arrays.sort(touched, 0, rowCount);
+            for(int t = 0; t < rowCount; ++t) {
+                final var aggregate = touched[t];
+                columns[count] = aggregate;
+                values[count++] = accumulated[aggregate];
+                position[aggregate] = -1;
+            }
+            pointers[i + 1] = count;
+        }
+        level.prolongPointers = pointers;
+        level.prolongColumns = columns;
+        level.prolongValues = values;
+    }
+
+    // P^T * A * P with the prolongator of the level.
+    private static SparseMatrix galerkinProduct(Level level, int coarseSize) {
+        final var A = level.matrix;
+        final var pointers = level.prolongPointers;
+        final var columns = level.prolongColumns;
+        final var values = level.prolongValues;
+        final var coarse = new SparseMatrix(coarseSize);
+
+        final var accumulated = new double[coarseSize];
+        final var marked = new boolean[coarseSize];
+        final var touched = new int[coarseSize];
+        for(int i = 0; i < A.size(); ++i) {
+            if(pointers[i] == pointers[i + 1])
+                continue;
+            // Row i of A * P
+            int rowCount = 0;
+            final var rowColumns = A.rowColumns(i);
+            final var rowValues = A.rowValues(i);
+            for(int p = 0; p < A.rowLength(i); ++p) {
+                final var k = rowColumns[p];
+                final var value = rowValues[p];
+                for(int q = pointers[k]; q < pointers[k + 1]; ++q) {
+                    final var column = columns[q];
+                    if(!marked[column]) {
+                        marked[column] = true;
+                        accumulated[column] = 0;
+                        touched[rowCount++] = column;
+                    }
+                    accumulated[column] += value * values[q];
+                }
+            }
+            // Scatter into the rows of P^T selected by row i of P.
+            for(int q = pointers[i]; q < pointers[i + 1]; ++q) {
+                final var row = columns[q];
+                final var weight = values[q];
+                for(int t = 0; t < rowCount; ++t)
+                    coarse.add(row, touched[t], weight * accumulated[touched[t]]);
+            }
+            for(int t = 0; t < rowCount; ++t)
+                marked[touched[t]] = false;
+        }
+        return coarse;
+    }
+}
@@ -16,8 +16,6 @@
 package org.patryk3211.powergrid.electricity.sim.solver;
 
 import org.ejml.data.DMatrixRMaj;
-import org.ejml.dense.row.CommonOps_DDRM;
-import org.ejml.dense.row.NormOps_DDRM;
 import org.ejml.dense.row.RandomMatrices_DDRM;
 
 import java.util.Random;
@@ -27,12 +25,17 @@ import static org.patryk3211.powergrid.electricity.sim.ElectricalNetwork.LOGGER;
 /*
  * Biconjugate Gradient Stabilized method
  * algorithm implemented according to https://en.wikipedia.org/wiki/Biconjugate_gradient_stabilized_method
+ * with an optional right preconditioner (solves A * M^-1 * y = b, x = M^-1 * y).
  */
 public class BiCGSTABSolver implements ISolver {
     private static final boolean USE_RANDOM_HAT_RESIDUAL = true;
     private static final int MAX_ITERATIONS = 200;
 
     private final Random random;
+    private final IPreconditioner preconditioner;
+    private SparseMatrix preconditionedMatrix;
+    private int preconditionedStructure;
+    private int preconditionedVersion;
 
     // Solved vector
     private DMatrixRMaj guess;
@@ -45,11 +48,24 @@ public class BiCGSTABSolver implements ISolver {
     private DMatrixRMaj h;
     private DMatrixRMaj s;
     private DMatrixRMaj t;
+    // Preconditioned vectors, only allocated with a preconditioner
+    private DMatrixRMaj y;
+    private DMatrixRMaj z;
+    // Results of the fused kernels which compute two reductions at once
+    private final double[] dots = new double[2];
 
     private final double targetPrecision;
+    private int iterations;
+    private boolean converged;
+    private long deadline = NO_DEADLINE;
 
     public BiCGSTABSolver(double targetPrecision) {
+        this(targetPrecision, null);
+    }
+
+    public BiCGSTABSolver(double targetPrecision, IPreconditioner preconditioner) {
         this.targetPrecision = targetPrecision;
+        this.preconditioner = preconditioner;
         this.random = new Random();
     }
 
@@ -64,7 +80,22 @@ public class BiCGSTABSolver implements ISolver {
             h = new DMatrixRMaj(newSize, 1);
             s = new DMatrixRMaj(newSize, 1);
             t = new DMatrixRMaj(newSize, 1);
+            if(preconditioner != null) {
+                y = new DMatrixRMaj(newSize, 1);
+                z = new DMatrixRMaj(newSize, 1);
+            }
+            generateHatResidual();
         }
+        // State size is set after every structure change, preconditioner has to be rebuilt.
+        preconditionedMatrix = null;
+    }
+
+    // Shadow residual is kept between solves so that consecutive solves of a slowly changing system behave the same.
+    private void generateHatResidual() {
+        if(USE_RANDOM_HAT_RESIDUAL)
+            RandomMatrices_DDRM.fillUniform(hatResidual, random);
+        else
+            hatResidual.zero();
     }
 
     @Override
@@ -72,17 +103,52 @@ public class BiCGSTABSolver implements ISolver {
         if(guess != null) {
             guess.zero();
             residual.zero();
-            hatResidual.zero();
             p.zero();
             v.zero();
             h.zero();
             s.zero();
             t.zero();
+            generateHatResidual();
         }
     }
 
     @Override
-    public DMatrixRMaj solve(DMatrixRMaj A, DMatrixRMaj b) {
+    public void setInitialGuess(DMatrixRMaj guess) {
+        this.guess.setTo(guess);
+    }
+
+    @Override
+    public void setInterface(boolean[] interfaceUnknowns) {
+        // Whole system is iterated at once.
+    }
+
+    @Override
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public boolean hasConverged() {
+        return converged;
+    }
+
+    // Returns M^-1 * vector, without a preconditioner the vector itself is returned.
+    private DMatrixRMaj precondition(DMatrixRMaj vector, DMatrixRMaj output) {
+        if(preconditioner == null)
+            return vector;
+        preconditioner.apply(vector, output);
+        return output;
+    }
+
+    @Override
+    public DMatrixRMaj solve(SparseMatrix A, DMatrixRMaj b) {
+        iterations = 0;
+        converged = true;
         if(b.getNumRows() == 0)
             return guess;
         boolean zeroResult = true;
@@ -97,64 +163,73 @@ public class BiCGSTABSolver implements ISolver {
             return guess;
         }
 
+        if(preconditioner != null && (preconditionedMatrix != A || preconditionedStructure != A.getStructureVersion())) {
+            preconditioner.build(A);
+            preconditionedMatrix = A;
+            preconditionedStructure = A.getStructureVersion();
+            preconditionedVersion = A.getVersion();
+        } else if(preconditioner != null && preconditionedVersion != A.getVersion()) {
+            preconditioner.update(A);
+            preconditionedVersion = A.getVersion();
+        }
+
         // r = b - A * x
-        CommonOps_DDRM.mult(A, guess, v);
-        CommonOps_DDRM.subtract(b, v, residual);
+        double norm = Math.sqrt(FusedKernels.residual(A, guess.data, b.data, residual.data));
 
-        if(USE_RANDOM_HAT_RESIDUAL) {
-            RandomMatrices_DDRM.fillUniform(hatResidual, random);
-        } else {
+        // Previous solution is still good enough, this is the usual case for a network that didn't change.
+        if(norm <= targetPrecision)
+            return guess;
+
+        double dot = FusedKernels.dot(hatResidual.data, residual.data);
+        if(!USE_RANDOM_HAT_RESIDUAL || dot == 0) {
             hatResidual.setTo(residual);
-        }
-        double dot = CommonOps_DDRM.dot(hatResidual, residual);
-        if(USE_RANDOM_HAT_RESIDUAL) {
-            if(dot == 0)
-                hatResidual.setTo(residual);
+            dot = FusedKernels.dot(hatResidual.data, residual.data);
         }
         p.setTo(residual);
 
-        int iters = 0;
-        double norm = 0;
-        while(iters++ < MAX_ITERATIONS) {
-            // v = A * p
-            CommonOps_DDRM.mult(A, p, v);
-
-            double alpha = dot / CommonOps_DDRM.dot(hatResidual, v);
-            // h = x + alpha * p
-            CommonOps_DDRM.add(guess, alpha, p, h);
+        while(iterations++ < MAX_ITERATIONS) {
+            // v = A * M^-1 * p
+            var pHat = precondition(p, y);
+            double alpha = dot / FusedKernels.multiplyDot(A, pHat.data, v.data, hatResidual.data);
+            // h = x + alpha * M^-1 * p
             // s = r - alpha * v
-            CommonOps_DDRM.add(residual, -alpha, v, s);
-
-            norm = NormOps_DDRM.normP2(s);
+            norm = Math.sqrt(FusedKernels.updatePair(guess.data, pHat.data, h.data, residual.data, v.data, s.data, alpha));
             if(norm <= targetPrecision) {
                 guess.setTo(h);
                 break;
             }
 
-            // t = A * s
-            CommonOps_DDRM.mult(A, s, t);
-            double omega = CommonOps_DDRM.dot(t, s) / CommonOps_DDRM.dot(t, t);
+            // t = A * M^-1 * s
+            var sHat = precondition(s, z);
+            FusedKernels.multiplyDots(A, sHat.data, s.data, t.data, dots);
+            double omega = dots[0] / dots[1];
 
-            // x = h + omega * s
-            CommonOps_DDRM.add(h, omega, s, guess);
+            // x = h + omega * M^-1 * s
             // r = s - omega * t
-            CommonOps_DDRM.add(s, -omega, t, residual);
-
-            norm = NormOps_DDRM.normP2(residual);
+            FusedKernels.updatePairDot(h.data, sHat.data, guess.data, s.data, t.data, residual.data, omega, hatResidual.data, dots);
+            norm = Math.sqrt(dots[0]);
             if(norm <= targetPrecision) {
                 break;
             }
 
             double dotPrev = dot;
-            dot = CommonOps_DDRM.dot(hatResidual, residual);
+            dot = dots[1];
             double beta = (dot / dotPrev) * (alpha / omega);
             // p = r + β(p − ωv)
-            CommonOps_DDRM.add(p, -omega, v, t);
-            CommonOps_DDRM.add(residual, beta, t, p);
+            FusedKernels.updateDirection(p.data, residual.data, v.data, beta, omega);
+
+            if(deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0) {
+                // Out of time, iterate stays in the guess for the next solve.
+                converged = false;
+                break;
+            }
         }
 
-        if(iters >= MAX_ITERATIONS && LOGGER != null) {
-            LOGGER.warn("Solver iteration limit, final precision: {}", norm);
+        if(iterations > MAX_ITERATIONS) {
+            iterations = MAX_ITERATIONS;
+            converged = false;
+            if(LOGGER != null)
+                LOGGER.warn("Solver iteration limit, final precision: {}", norm);
         }
 
         return guess;
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+/*
+ * Vector operations of the iterative solvers fused into single passes over the vector storage.
+ * Every step of an iteration which reads the same vectors (updates followed by a norm or a dot
+ * product) is done in one loop, this halves the memory traffic compared to separate calls.
+ * Loops are kept simple so that the JIT can vectorize the element-wise parts. The dense reductions
+ * split their accumulator to avoid a serial dependency on it: dot and updatePair use four partial
+ * sums, updatePairDot two for each of its products. Kernels which multiply by the matrix keep a
+ * single sum, their loops are limited by the indirect reads of x instead.
+ */
+final class FusedKernels {
+    private FusedKernels() {
+    }
+
+    // Row i of A * x
+    private static double rowProduct(SparseMatrix A, int row, double[] x) {
+        final var rowColumns = A.rowColumns(row);
+        final var rowValues = A.rowValues(row);
+        final int length = A.rowLength(row);
+        double sum = 0;
+        for(int i = 0; i < length; ++i)
+            sum += rowValues[i] * x[rowColumns[i]];
+        return sum;
+    }
+
+    // r = b - A * x, returns |r|^2
+    static double residual(SparseMatrix A, double[] x, double[] b, double[] r) {
+        double sum = 0;
+        for(int row = 0; row < r.length; ++row) {
+            final var value = b[row] - rowProduct(A, row, x);
+            r[row] = value;
+            sum += value * value;
+        }
+        return sum;
+    }
+
+    // y = A * x, returns w . y
+    static double multiplyDot(SparseMatrix A, double[] x, double[] y, double[] w) {
+        double sum = 0;
+        for(int row = 0; row < y.length; ++row) {
+            final var value = rowProduct(A, row, x);
+            y[row] = value;
+            sum += w[row] * value;
+        }
+        return sum;
+    }
+
+    // y = A * x, out = { y . s, y . y }
+    static void multiplyDots(SparseMatrix A, double[] x, double[] s, double[] y, double[] out) {
+        double ys = 0, yy = 0;
+        for(int row = 0; row < y.length; ++row) {
+            final var value = rowProduct(A, row, x);
+            y[row] = value;
+            ys += value * s[row];
+            yy += value * value;
+        }
+        out[0] = ys;
+        out[1] = yy;
+    }
+
+    static double dot(double[] a, double[] b) {
+        final int n = a.length;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for(; i + 3 < n; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for(; i < n; ++i)
+            s0 += a[i] * b[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    // x2 = x1 + alpha * p, r2 = r1 - alpha * q, returns |r2|^2. Outputs can alias the inputs.
+    static double updatePair(double[] x1, double[] p, double[] x2, double[] r1, double[] q, double[] r2, double alpha) {
+        final int n = x2.length;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for(; i + 3 < n; i += 4) {
+            x2[i] = x1[i] + alpha * p[i];
+            x2[i + 1] = x1[i + 1] + alpha * p[i + 1];
+            x2[i + 2] = x1[i + 2] + alpha * p[i + 2];
+            x2[i + 3] = x1[i + 3] + alpha * p[i + 3];
+            final var v0 = r1[i] - alpha * q[i];
+            final var v1 = r1[i + 1] - alpha * q[i + 1];
+            final var v2 = r1[i + 2] - alpha * q[i + 2];
+            final var v3 = r1[i + 3] - alpha * q[i + 3];
+            r2[i] = v0;
+            r2[i + 1] = v1;
+            r2[i + 2] = v2;
+            r2[i + 3] = v3;
+            s0 += v0 * v0;
+            s1 += v1 * v1;
+            s2 += v2 * v2;
+            s3 += v3 * v3;
+        }
+        for(; i < n; ++i) {
+            x2[i] = x1[i] + alpha * p[i];
+            final var v = r1[i] - alpha * q[i];
+            r2[i] = v;
+            s0 += v * v;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    // Same as `updatePair()`, out = { |r2|^2, w . r2 }
+    static void updatePairDot(double[] x1, double[] p, double[] x2, double[] r1, double[] q, double[] r2, double alpha, double[] w, double[] out) {
+        final int n = x2.length;
+        double norm0 = 0, norm1 = 0, dot0 = 0, dot1 = 0;
+        int i = 0;
+        for(; i + 1 < n; i += 2) {
+            x2[i] = x1[i] + alpha * p[i];
+            x2[i + 1] = x1[i + 1] + alpha * p[i + 1];
+            final var v0 = r1[i] - alpha * q[i];
+            final var v1 = r1[i + 1] - alpha * q[i + 1];
+            r2[i] = v0;
+            r2[i + 1] = v1;
+            norm0 += v0 * v0;
+            norm1 += v1 * v1;
+            dot0 += w[i] * v0;
+            dot1 += w[i + 1] * v1;
+        }
+        for(; i < n; ++i) {
+            x2[i] = x1[i] + alpha * p[i];
+            final var v = r1[i] - alpha * q[i];
+            r2[i] = v;
+            norm0 += v * v;
+            dot0 += w[i] * v;
+        }
+        out[0] = norm0 + norm1;
+        out[1] = dot0 + dot1;
+    }
+
+    // p = r + beta * (p - omega * v)
+    static void updateDirection(double[] p, double[] r, double[] v, double beta, double omega) {
+        for(int i = 0; i < p.length; ++i)
+            p[i] = r[i] + beta * (p[i] - omega * v[i]);
+    }
+
+    // p = z + beta * p
+    static void updateDirection(double[] p, double[] z, double beta) {
+        for(int i = 0; i < p.length; ++i)
+            p[i] = z[i] + beta * p[i];
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.Arrays;
+
+/*
+ * Incomplete LU factorization with zero fill-in, L and U keep the sparsity pattern of A.
+ * Factors are stored together in a flat row compressed copy of the matrix, L has an implicit unit diagonal.
+ */
+public class ILU0Preconditioner implements IPreconditioner {
+    // Pivots this small relative to their row are replaced, this happens for floating parts of the circuit.
+    private static final double PIVOT_TOLERANCE = 1e-12;
+
+    private int size;
+    private int[] rowPointers;
+    private int[] columns;
+    private double[] values;
+    private int[] diagonal;
+    private int[] positions;
+
+    @Override
+    public void build(SparseMatrix A) {
+        final int n = A.size();
+        size = n;
+
+        // Copy the matrix making sure that every row has a diagonal element.
+        rowPointers = new int[n + 1];
+        for(int row = 0; row < n; ++row)
+            rowPointers[row + 1] = rowPointers[row] + A.rowLength(row) + (A.contains(row, row) ? 0 : 1);
+        columns = new int[rowPointers[n]];
+        values = new double[rowPointers[n]];
+        diagonal = new int[n];
+        for(int row = 0; row < n; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            final var rowValues = A.rowValues(row);
+            int p = rowPointers[row];
+            boolean diagonalStored = false;
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                if(!diagonalStored && rowColumns[i] >= row) {
+                    diagonal[row] = p;
+                    diagonalStored = true;
+                    if(rowColumns[i] > row) {
+                        columns[p] = row;
+                        values[p++] = 0;
+                    }
+                }
+                columns[p] = rowColumns[i];
+                values[p++] = rowValues[i];
+            }
+            if(!diagonalStored) {
+                diagonal[row] = p;
+                columns[p] = row;
+                values[p] = 0;
+            }
+        }
+
+        if(positions == null || positions.length != n)
+            positions = new int[n];
+        Arrays.fill(positions, -1);
+        for(int row = 0; row < n; ++row) {
+            final int start = rowPointers[row], end = rowPointers[row + 1];
+            for(int p = start; p < end; ++p)
+                positions[columns[p]] = p;
+
+            for(int p = start; p < diagonal[row]; ++p) {
+                final int k = columns[p];
+                final var factor = values[p] /= values[diagonal[k]];
+                for(int q = diagonal[k] + 1; q < rowPointers[k + 1]; ++q) {
+                    final int position = positions[columns[q]];
+                    if(position >= 0)
+                        values[position] -= factor * values[q];
+                }
+            }
+
+            double scale = 0;
+            for(int p = start; p < end; ++p)
+                scale = Math.max(scale, Math.abs(values[p]));
+            if(Math.abs(values[diagonal[row]]) <= PIVOT_TOLERANCE * scale)
+                values[diagonal[row]] = scale != 0 ? scale : 1;
+
+            for(int p = start; p < end; ++p)
+                positions[columns[p]] = -1;
+        }
+    }
+
+    @Override
+    public void update(SparseMatrix A) {
+        // Preconditioner built for the first values stays close enough until the structure changes.
+    }
+
+    @Override
+    public void apply(DMatrixRMaj r, DMatrixRMaj z) {
+        final var rData = r.data;
+        final var zData = z.data;
+        // L * y = r
+        for(int row = 0; row < size; ++row) {
+            var sum = rData[row];
+            for(int p = rowPointers[row]; p < diagonal[row]; ++p)
+                sum -= values[p] * zData[columns[p]];
+            zData[row] = sum;
+        }
+        // U * z = y
+        for(int row = size - 1; row >= 0; --row) {
+            var sum = zData[row];
+            for(int p = diagonal[row] + 1; p < rowPointers[row + 1]; ++p)
+                sum -= values[p] * zData[columns[p]];
+            zData[row] = sum / values[diagonal[row]];
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+import org.ejml.data.DMatrixRMaj;
+
+public interface IPreconditioner {
+    // Called after the structure of the system matrix changes.
+    void build(SparseMatrix A);
+    // Called before a solve when values of the system matrix changed, the structure is the same as during `build()`.
+    void update(SparseMatrix A);
+    // z = M^-1 * r
+    void apply(DMatrixRMaj r, DMatrixRMaj z);
+}
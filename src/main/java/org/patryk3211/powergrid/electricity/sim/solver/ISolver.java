@@ -18,7 +18,26 @@ package org.patryk3211.powergrid.electricity.sim.solver;
 import org.ejml.data.DMatrixRMaj;
 
 public interface ISolver {
+    long NO_DEADLINE = Long.MAX_VALUE;
+
     void setStateSize(int size);
-    DMatrixRMaj solve(DMatrixRMaj A, DMatrixRMaj b);
+    DMatrixRMaj solve(SparseMatrix A, DMatrixRMaj b);
     void zero();
+
+    // Starting point of the next solve, has to match the state size. Ignored by direct solvers.
+    void setInitialGuess(DMatrixRMaj guess);
+
+    // Unknowns which couple otherwise independent parts of the system (transformer couplings),
+    // set after every state size change. Ignored by solvers which solve the system as a whole.
+    void setInterface(boolean[] interfaceUnknowns);
+
+    // Iterative solvers stop once `System.nanoTime()` passes the deadline, the solve is reported as not converged
+    // and the next solve continues from the current iterate. Ignored by direct solvers.
+    void setDeadline(long deadline);
+
+    // Number of iterations done by the last solve.
+    int getIterations();
+
+    // False if the last solve stopped before reaching the target precision.
+    boolean hasConverged();
 }
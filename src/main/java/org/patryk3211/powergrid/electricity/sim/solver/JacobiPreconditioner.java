@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+import org.ejml.data.DMatrixRMaj;
+
+/*
+ * Diagonal (Jacobi) preconditioner, M = diag(A).
+ */
+public class JacobiPreconditioner implements IPreconditioner {
+    private double[] inverseDiagonal;
+
+    @Override
+    public void build(SparseMatrix A) {
+        final int n = A.size();
+        if(inverseDiagonal == null || inverseDiagonal.length != n)
+            inverseDiagonal = new double[n];
+        for(int i = 0; i < n; ++i) {
+            final var diagonal = A.get(i, i);
+            // Transformer couplings without resistance have no diagonal element, leave those rows unscaled.
+            inverseDiagonal[i] = diagonal != 0 ? 1 / diagonal : 1;
+        }
+    }
+
+    @Override
+    public void update(SparseMatrix A) {
+        // Preconditioner built for the first values stays close enough until the structure changes.
+    }
+
+    @Override
+    public void apply(DMatrixRMaj r, DMatrixRMaj z) {
+        final var rData = r.data;
+        final var zData = z.data;
+        for(int i = 0; i < inverseDiagonal.length; ++i)
+            zData[i] = rData[i] * inverseDiagonal[i];
+    }
+}
@@ -0,0 +1,598 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/*
+ * Direct solver which splits the system at interface unknowns (transformer couplings) into
+ * independent subdomains. With the interface unknowns ordered last the system is
+ *   [ A_DD  A_DI ] [ x_D ]   [ b_D ]
+ *   [ A_ID  A_II ] [ x_I ] = [ b_I ]
+ * where A_DD is block diagonal, one block per subdomain. Every block has its own sparse LU
+ * factorization and only the small dense Schur complement S = A_II - A_ID * A_DD^-1 * A_DI
+ * couples them:
+ *   S * x_I = b_I - A_ID * A_DD^-1 * b_D,   x_D = A_DD^-1 * b_D - A_DD^-1 * A_DI * x_I
+ * A value change inside one subdomain only updates the factorization of its block and its
+ * contribution to S, other blocks are untouched. Blocks are solved in parallel when large enough.
+ *
+ * Subdomain which is only determined through the interface (e.g. an unloaded transformer
+ * terminal) has a singular block, such subdomains are moved into the interface.
+ */
+public class PartitionedSolver implements ISolver {
+    private static final double SINGULAR_TOLERANCE = 1e-12;
+    // Relative residual above which a singular block fix changed the solution of the system.
+    private static final double RESIDUAL_TOLERANCE = 1e-6;
+    // Blocks are only distributed between threads when the system has at least this many unknowns
+    // and the solve already runs on a pool, forking from any other thread would use the common pool.
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final boolean parallel;
+    private int size;
+    private DMatrixRMaj result;
+    private boolean[] interfaceUnknowns;
+    // Unknowns moved into the interface because their block was singular, kept until the structure changes.
+    private boolean[] promoted;
+
+    // Partition
+    private SparseMatrix analysedMatrix;
+    private int analysedStructure;
+    private int refreshedVersion;
+    private Block[] blocks;
+    private int[] blockOf;
+    private int[] localIndex;
+    private int[] interfaceIndices;
+    private int[] interfacePosition;
+    // Entries of A_II in the row order of A.
+    private double[] interfaceValues;
+
+    // Dense LU factorized Schur complement
+    private boolean schurValid;
+    private double[] schur;
+    private int[] schurPivots;
+    private double[] interfaceVector;
+
+    private int updatedBlocks;
+
+    private static class Block {
+        // Global indices of the block unknowns, in the order of local indices.
+        final int[] rows;
+        final SparseMatrix matrix;
+        final SparseLUSolver solver = new SparseLUSolver();
+        final DMatrixRMaj vector;
+        // A_DI entries of the block rows, in the row order of A.
+        int[] couplingRows;
+        int[] couplingColumns;
+        double[] couplingValues;
+        // A_ID entries of the block columns, in the row order of A.
+        int[] boundaryRows;
+        int[] boundaryColumns;
+        double[] boundaryValues;
+        // Interface unknowns connected to the block and the matching columns of A_DD^-1 * A_DI.
+        int[] touched;
+        double[][] coupling;
+        int couplingVersion = -1;
+        boolean updated;
+        boolean singular;
+        // A_DD^-1 * b_D
+        final double[] solution;
+
+        Block(int[] rows) {
+            this.rows = rows;
+            this.matrix = new SparseMatrix(rows.length);
+            this.vector = new DMatrixRMaj(rows.length, 1);
+            this.solution = new double[rows.length];
+        }
+    }
+
+    public PartitionedSolver() {
+        this(true);
+    }
+
+    public PartitionedSolver(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    @Override
+    public void setStateSize(int newSize) {
+        if(result == null || size != newSize) {
+            size = newSize;
+            result = new DMatrixRMaj(newSize, 1);
+            promoted = new boolean[newSize];
+        }
+        interfaceUnknowns = null;
+        analysedMatrix = null;
+    }
+
+    @Override
+    public void setInterface(boolean[] interfaceUnknowns) {
+        this.interfaceUnknowns = interfaceUnknowns;
+        analysedMatrix = null;
+    }
+
+    @Override
+    public void zero() {
+        if(blocks != null) {
+            for(var block : blocks) {
+                block.solver.zero();
+                block.couplingVersion = -1;
+            }
+        }
+        schurValid = false;
+        if(result != null)
+            result.zero();
+    }
+
+    @Override
+    public void setInitialGuess(DMatrixRMaj guess) {
+        // Direct solver doesn't need a starting point.
+    }
+
+    @Override
+    public void setDeadline(long deadline) {
+        // Factorization can't be interrupted and resumed.
+    }
+
+    @Override
+    public int getIterations() {
+        // Direct solver, every solve is a single pass.
+        return 1;
+    }
+
+    @Override
+    public boolean hasConverged() {
+        // Solving again with the same factorization won't improve the result.
+        return true;
+    }
+
+    public int getBlockCount() {
+        return blocks == null ? 0 : blocks.length;
+    }
+
+    public int getInterfaceSize() {
+        return interfaceIndices == null ? 0 : interfaceIndices.length;
+    }
+
+    // Number of blocks which had their factorization or Schur contribution updated by the last solve.
+    public int getUpdatedBlockCount() {
+        return updatedBlocks;
+    }
+
+    @Override
+    public DMatrixRMaj solve(SparseMatrix A, DMatrixRMaj b) {
+        if(b.getNumRows() == 0)
+            return result;
+
+        if(analysedMatrix != A || analysedStructure != A.getStructureVersion()) {
+            Arrays.fill(promoted, false);
+            analyse(A);
+        } else if(refreshedVersion != A.getVersion()) {
+            refreshValues(A);
+        }
+
+        while(solveBlocks(b)) {
+            // Some blocks were singular, their unknowns are now a part of the interface.
+            analyse(A);
+        }
+
+        final var x = result.data;
+        final int m = interfaceIndices.length;
+        if(m > 0) {
+            if(!schurValid)
+                factorizeSchur(A);
+            for(int p = 0; p < m; ++p)
+                interfaceVector[p] = b.data[interfaceIndices[p]];
+            for(var block : blocks) {
+                for(int e = 0; e < block.boundaryRows.length; ++e)
+                    interfaceVector[block.boundaryRows[e]] -= block.boundaryValues[e] * block.solution[block.boundaryColumns[e]];
+            }
+            schurSolve(interfaceVector);
+            for(int p = 0; p < m; ++p)
+                x[interfaceIndices[p]] = interfaceVector[p];
+        }
+
+        for(var block : blocks) {
+            final var rows = block.rows;
+            for(int i = 0; i < rows.length; ++i)
+                x[rows[i]] = block.solution[i];
+            for(int t = 0; t < block.touched.length; ++t) {
+                final var value = interfaceVector[block.touched[t]];
+                if(value == 0)
+                    continue;
+                final var column = block.coupling[t];
+                for(int i = 0; i < rows.length; ++i)
+                    x[rows[i]] -= column[i] * value;
+            }
+        }
+        return result;
+    }
+
+    // Solve every block for its part of the right hand side. Returns true if the partition has to be redone.
+    private boolean solveBlocks(DMatrixRMaj b) {
+        if(parallel && blocks.length > 1 && size >= PARALLEL_THRESHOLD && ForkJoinTask.inForkJoinPool()) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(blocks.length);
+            for(var block : blocks)
+                tasks.add(ForkJoinTask.adapt(() -> solveBlock(block, b)));
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            for(var block : blocks)
+                solveBlock(block, b);
+        }
+
+        boolean repartition = false;
+        updatedBlocks = 0;
+        for(var block : blocks) {
+            if(block.singular) {
+                for(var row : block.rows)
+                    promoted[row] = true;
+                repartition = true;
+            } else if(block.updated) {
+                ++updatedBlocks;
+                schurValid = false;
+            }
+        }
+        return repartition;
+    }
+
+    private void solveBlock(Block block, DMatrixRMaj b) {
+        final var rows = block.rows;
+        final var vector = block.vector.data;
+        block.updated = block.couplingVersion != block.matrix.getVersion();
+        if(block.updated) {
+            for(int t = 0; t < block.touched.length; ++t) {
+                Arrays.fill(vector, 0);
+                for(int e = 0; e < block.couplingRows.length; ++e) {
+                    if(block.couplingColumns[e] == block.touched[t])
+                        vector[block.couplingRows[e]] = block.couplingValues[e];
+                }
+                var column = block.solver.solve(block.matrix, block.vector).data;
+                // Fixed unknowns of a singular block changed the solution, the block
+                // is only determined together with the interface.
+                if(block.solver.isSingular() && residual(block.matrix, column, vector) > RESIDUAL_TOLERANCE) {
+                    block.singular = true;
+                    return;
+                }
+                System.arraycopy(column, 0, block.coupling[t], 0, rows.length);
+            }
+            block.couplingVersion = block.matrix.getVersion();
+        }
+
+        for(int i = 0; i < rows.length; ++i)
+            vector[i] = b.data[rows[i]];
+        System.arraycopy(block.solver.solve(block.matrix, block.vector).data, 0, block.solution, 0, rows.length);
+    }
+
+    // Largest element of A * x - b relative to the largest element of b.
+    private static double residual(SparseMatrix A, double[] x, double[] b) {
+        double largest = 0, scale = 0;
+        for(int row = 0; row < A.size(); ++row) {
+            final var rowColumns = A.rowColumns(row);
+            final var rowValues = A.rowValues(row);
+            double sum = -b[row];
+            for(int i = 0; i < A.rowLength(row); ++i)
+                sum += rowValues[i] * x[rowColumns[i]];
+            largest = Math.max(largest, Math.abs(sum));
+            scale = Math.max(scale, Math.abs(b[row]));
+        }
+        return scale == 0 ? largest : largest / scale;
+    }
+
+    private static int findRoot(int[] parent, int index) {
+        while(parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private void analyse(SparseMatrix A) {
+        final int n = size;
+        final var boundary = new boolean[n];
+        for(int i = 0; i < n; ++i)
+            boundary[i] = promoted[i] || (interfaceUnknowns != null && interfaceUnknowns[i]);
+
+        // Subdomains are the connected parts of the system left after removing the interface.
+        final var parent = new int[n];
+        for(int i = 0; i < n; ++i)
+            parent[i] = i;
+        for(int row = 0; row < n; ++row) {
+            if(boundary[row])
+                continue;
+            final var rowColumns = A.rowColumns(row);
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                final var column = rowColumns[i];
+                if(boundary[column])
+                    continue;
+                final var root1 = findRoot(parent, row);
+                final var root2 = findRoot(parent, column);
+                if(root1 != root2)
+                    parent[root2] = root1;
+            }
+        }
+        final var coupled = new boolean[n];
+        for(int row = 0; row < n; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                final var column = rowColumns[i];
+                if(boundary[row] != boundary[column])
+                    coupled[findRoot(parent, boundary[row] ? column : row)] = true;
+            }
+        }
+
+        // Every subdomain connected to the interface gets its own block, all other parts
+        // of the system (isolated nodes, eliminated nodes) share a single block.
+        final var blockOfRoot = new int[n];
+        Arrays.fill(blockOfRoot, -1);
+        int detachedBlock = -1;
+        int blockCount = 0;
+        int interfaceCount = 0;
+        blockOf = new int[n];
+        for(int i = 0; i < n; ++i) {
+            if(boundary[i]) {
+                blockOf[i] = -1;
+                ++interfaceCount;
+                continue;
+            }
+            final var root = findRoot(parent, i);
+            if(blockOfRoot[root] < 0) {
+                if(coupled[root]) {
+                    blockOfRoot[root] = blockCount++;
+                } else {
+                    if(detachedBlock < 0)
+                        detachedBlock = blockCount++;
+                    blockOfRoot[root] = detachedBlock;
+                }
+            }
+            blockOf[i] = blockOfRoot[root];
+        }
+
+        final var blockSizes = new int[blockCount];
+        localIndex = new int[n];
+        interfaceIndices = new int[interfaceCount];
+        interfacePosition = new int[n];
+        interfaceCount = 0;
+        for(int i = 0; i < n; ++i) {
+            if(boundary[i]) {
+                interfacePosition[i] = interfaceCount;
+                interfaceIndices[interfaceCount++] = i;
+                localIndex[i] = -1;
+            } else {
+                interfacePosition[i] = -1;
+                localIndex[i] = blockSizes[blockOf[i]]++;
+            }
+        }
+        blocks = new Block[blockCount];
+        for(int k = 0; k < blockCount; ++k)
+            blocks[k] = new Block(new int[blockSizes[k]]);
+        for(int i = 0; i < n; ++i) {
+            if(!boundary[i])
+                blocks[blockOf[i]].rows[localIndex[i]] = i;
+        }
+
+        // Count the coupling entries of every block.
+        final var couplingCounts = new int[blockCount];
+        final var boundaryCounts = new int[blockCount];
+        int interfaceEntries = 0;
+        for(int row = 0; row < n; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                final var column = rowColumns[i];
+                if(!boundary[row] && boundary[column])
+                    ++couplingCounts[blockOf[row]];
+                else if(boundary[row] && !boundary[column])
+                    ++boundaryCounts[blockOf[column]];
+                else if(boundary[row])
+                    ++interfaceEntries;
+            }
+        }
+        for(int k = 0; k < blockCount; ++k) {
+            final var block = blocks[k];
+            block.couplingRows = new int[couplingCounts[k]];
+            block.couplingColumns = new int[couplingCounts[k]];
+            block.couplingValues = new double[couplingCounts[k]];
+            block.boundaryRows = new int[boundaryCounts[k]];
+            block.boundaryColumns = new int[boundaryCounts[k]];
+            block.boundaryValues = new double[boundaryCounts[k]];
+        }
+        interfaceValues = new double[interfaceEntries];
+
+        Arrays.fill(couplingCounts, 0);
+        Arrays.fill(boundaryCounts, 0);
+        interfaceEntries = 0;
+        for(int row = 0; row < n; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            final var rowValues = A.rowValues(row);
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                final var column = rowColumns[i];
+                final var value = rowValues[i];
+                if(!boundary[row] && !boundary[column]) {
+                    // Explicit zeros are kept, block structure stays the same when the values change.
+                    blocks[blockOf[row]].matrix.add(localIndex[row], localIndex[column], value);
+                } else if(!boundary[row]) {
+                    final var block = blocks[blockOf[row]];
+                    final var e = couplingCounts[blockOf[row]]++;
+                    block.couplingRows[e] = localIndex[row];
+                    block.couplingColumns[e] = interfacePosition[column];
+                    block.couplingValues[e] = value;
+                } else if(!boundary[column]) {
+                    final var block = blocks[blockOf[column]];
+                    final var e = boundaryCounts[blockOf[column]]++;
+                    block.boundaryRows[e] = interfacePosition[row];
+                    block.boundaryColumns[e] = localIndex[column];
+                    block.boundaryValues[e] = value;
+                } else {
+                    interfaceValues[interfaceEntries++] = value;
+                }
+            }
+        }
+
+        final var marked = new boolean[interfaceCount];
+        for(var block : blocks) {
+            int touchedCount = 0;
+            for(var column : block.couplingColumns) {
+                if(!marked[column]) {
+                    marked[column] = true;
+                    ++touchedCount;
+                }
+            }
+            block.touched = new int[touchedCount];
+            block.coupling = new double[touchedCount][block.rows.length];
+            touchedCount = 0;
+            for(var column : block.couplingColumns) {
+                if(marked[column]) {
+                    marked[column] = false;
+                    block.touched[touchedCount++] = column;
+                }
+            }
+            block.solver.setStateSize(block.rows.length);
+        }
+
+        schur = new double[interfaceCount * interfaceCount];
+        schurPivots = new int[interfaceCount];
+        interfaceVector = new double[interfaceCount];
+        schurValid = false;
+
+        analysedMatrix = A;
+        analysedStructure = A.getStructureVersion();
+        refreshedVersion = A.getVersion();
+    }
+
+    // Copy changed values of A into the blocks, the structure is the same as during the analysis.
+    private void refreshValues(SparseMatrix A) {
+        final var couplingCursors = new int[blocks.length];
+        final var boundaryCursors = new int[blocks.length];
+        int interfaceCursor = 0;
+        for(int row = 0; row < size; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            final var rowValues = A.rowValues(row);
+            final var rowBlock = blockOf[row];
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                final var column = rowColumns[i];
+                final var value = rowValues[i];
+                final var columnBlock = blockOf[column];
+                if(rowBlock >= 0 && columnBlock >= 0) {
+                    // Block matrix version only changes when one of its values does.
+                    final var matrix = blocks[rowBlock].matrix;
+                    if(matrix.get(localIndex[row], localIndex[column]) != value)
+                        matrix.set(localIndex[row], localIndex[column], value);
+                } else if(rowBlock >= 0) {
+                    final var block = blocks[rowBlock];
+                    final var e = couplingCursors[rowBlock]++;
+                    if(block.couplingValues[e] != value) {
+                        block.couplingValues[e] = value;
+                        block.couplingVersion = -1;
+                    }
+                } else if(columnBlock >= 0) {
+                    final var block = blocks[columnBlock];
+                    final var e = boundaryCursors[columnBlock]++;
+                    if(block.boundaryValues[e] != value) {
+                        block.boundaryValues[e] = value;
+                        schurValid = false;
+                    }
+                } else {
+                    final var e = interfaceCursor++;
+                    if(interfaceValues[e] != value) {
+                        interfaceValues[e] = value;
+                        schurValid = false;
+                    }
+                }
+            }
+        }
+        refreshedVersion = A.getVersion();
+    }
+
+    // Assemble S = A_II - A_ID * A_DD^-1 * A_DI and factorize it with partial pivoting.
+    private void factorizeSchur(SparseMatrix A) {
+        final int m = interfaceIndices.length;
+        Arrays.fill(schur, 0);
+        int e = 0;
+        for(int p = 0; p < m; ++p) {
+            final var row = interfaceIndices[p];
+            final var rowColumns = A.rowColumns(row);
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                final var column = interfacePosition[rowColumns[i]];
+                if(column >= 0)
+                    schur[p * m + column] = interfaceValues[e++];
+            }
+        }
+        for(var block : blocks) {
+            for(int b = 0; b < block.boundaryRows.length; ++b) {
+                final var row = block.boundaryRows[b];
+                final var value = block.boundaryValues[b];
+                final var column = block.boundaryColumns[b];
+                for(int t = 0; t < block.touched.length; ++t)
+                    schur[row * m + block.touched[t]] -= value * block.coupling[t][column];
+            }
+        }
+
+        double largest = 0;
+        for(var value : schur)
+            largest = Math.max(largest, Math.abs(value));
+        for(int j = 0; j < m; ++j) {
+            int pivot = j;
+            for(int i = j + 1; i < m; ++i) {
+                if(Math.abs(schur[i * m + j]) > Math.abs(schur[pivot * m + j]))
+                    pivot = i;
+            }
+            schurPivots[j] = pivot;
+            if(pivot != j) {
+                for(int k = 0; k < m; ++k) {
+                    final var temp = schur[j * m + k];
+                    schur[j * m + k] = schur[pivot * m + k];
+                    schur[pivot * m + k] = temp;
+                }
+            }
+            // Interface unknown not determined by the system (parallel ideal transformers),
+            // it is fixed the same way as floating nodes are by the sparse factorization.
+            if(Math.abs(schur[j * m + j]) <= SINGULAR_TOLERANCE * largest)
+                schur[j * m + j] = 1;
+            for(int i = j + 1; i < m; ++i) {
+                final var factor = schur[i * m + j] /= schur[j * m + j];
+                if(factor == 0)
+                    continue;
+                for(int k = j + 1; k < m; ++k)
+                    schur[i * m + k] -= factor * schur[j * m + k];
+            }
+        }
+        schurValid = true;
+    }
+
+    private void schurSolve(double[] x) {
+        final int m = interfaceIndices.length;
+        for(int j = 0; j < m; ++j) {
+            final int pivot = schurPivots[j];
+            if(pivot != j) {
+                final var temp = x[j];
+                x[j] = x[pivot];
+                x[pivot] = temp;
+            }
+        }
+        for(int i = 0; i < m; ++i) {
+            for(int j = 0; j < i; ++j)
+                x[i] -= schur[i * m + j] * x[j];
+        }
+        for(int i = m - 1; i >= 0; --i) {
+            for(int j = i + 1; j < m; ++j)
+                x[i] -= schur[i * m + j] * x[j];
+            x[i] /= schur[i * m + i];
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+public enum SolverType {
+    // Iterative solver, no setup cost but the number of iterations grows with network size and conditioning.
+    BICGSTAB,
+    // Iterative solver with a diagonal preconditioner, helps networks with very different wire resistances.
+    BICGSTAB_JACOBI,
+    // Iterative solver with an incomplete LU preconditioner, usually needs much fewer iterations than the other two.
+    BICGSTAB_ILU,
+    // Iterative solver with an algebraic multigrid preconditioner, the number of iterations barely grows
+    // with network size. Best for very large meshes of wires.
+    BICGSTAB_AMG,
+    // Direct solver, factorization is reused for as long as the network's conductances don't change.
+    // Networks with transformers are factorized per circuit, coupled through a small interface system.
+    SPARSE_LU;
+
+    public ISolver create(double precision) {
+        return switch(this) {
+            case BICGSTAB -> new BiCGSTABSolver(precision);
+            case BICGSTAB_JACOBI -> new BiCGSTABSolver(precision, new JacobiPreconditioner());
+            case BICGSTAB_ILU -> new BiCGSTABSolver(precision, new ILU0Preconditioner());
+            case BICGSTAB_AMG -> new BiCGSTABSolver(precision, new AMGPreconditioner());
+            case SPARSE_LU -> new PartitionedSolver();
+        };
+    }
+
+    // Solver used by networks without transformer couplings, their system matrix is symmetric positive definite.
+    public ISolver createSymmetric(double precision) {
+        return switch(this) {
+            case BICGSTAB -> new ConjugateGradientSolver(precision);
+            case BICGSTAB_JACOBI -> new ConjugateGradientSolver(precision, new JacobiPreconditioner());
+            case BICGSTAB_ILU -> new ConjugateGradientSolver(precision, new ILU0Preconditioner());
+            case BICGSTAB_AMG -> new ConjugateGradientSolver(precision, new AMGPreconditioner());
+            case SPARSE_LU -> new SparseLUSolver();
+        };
+    }
+}
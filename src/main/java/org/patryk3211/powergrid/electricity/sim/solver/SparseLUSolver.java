@@ -0,0 +1,663 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.Arrays;
+
+/*
+ * Direct sparse LU solver
+ * left-looking LU factorization with partial pivoting implemented according to
+ * T. A. Davis, "Direct Methods for Sparse Linear Systems" (CSparse cs_lu).
+ *
+ * Columns are ordered with Reverse Cuthill-McKee to limit the fill-in. This symbolic analysis
+ * is kept until the structure of the matrix changes and the numeric factorization is kept
+ * until any value of the matrix changes, solving an unchanged system costs two triangular solves.
+ * A few changed columns (switch toggles, resistance changes) are absorbed as a low-rank
+ * Sherman-Morrison-Woodbury update of the existing factorization, the matrix is only
+ * refactored once the number of changed columns exceeds the update rank limit.
+ */
+public class SparseLUSolver implements ISolver {
+    // Diagonal element is preferred as the pivot as long as it isn't much smaller than the largest candidate.
+    private static final double PIVOT_TOLERANCE = 0.01;
+    // Pivots this small relative to the column are treated as zero. This happens for parts
+    // of the circuit which have no reference to ground, such parts get fixed at their last node.
+    private static final double SINGULAR_TOLERANCE = 1e-12;
+    private static final int DEFAULT_UPDATE_RANK = 16;
+
+    private int size;
+    private DMatrixRMaj result;
+
+    // Symbolic analysis
+    private SparseMatrix analysedMatrix;
+    private int analysedStructure;
+    private int[] columnOrder;
+    private int[] columnPointers;
+    private int[] rowIndices;
+    private double[] columnValues;
+    // Position of every row storage element in the column storage.
+    private int[] valueMap;
+
+    // Numeric factorization
+    private boolean factorized;
+    private boolean singular;
+    private int factorizedVersion;
+    private int[] rowPermutation;
+    private int[] lPointers;
+    private int[] lIndices;
+    private double[] lValues;
+    private int[] uPointers;
+    private int[] uIndices;
+    private double[] uValues;
+
+    // Low-rank update
+    private final int maxUpdateRank;
+    private int updateRank;
+    private final int[] updateColumns;
+    // Difference between the current and factorized values, over the nonzero pattern of the column.
+    private final double[][] updateDeltas;
+    // Z = A0^-1 * U
+    private final double[][] updateSolutions;
+    // LU factorized C = I + V^T * Z
+    private final double[] capacitance;
+    private final int[] capacitancePivots;
+    private final double[] capacitanceWork;
+
+    // Workspace
+    private double[] work;
+    private double[] permuted;
+    private double[] scatter;
+    private int[] stack;
+    private boolean[] marked;
+
+    public SparseLUSolver() {
+        this(DEFAULT_UPDATE_RANK);
+    }
+
+    public SparseLUSolver(int maxUpdateRank) {
+        this.maxUpdateRank = maxUpdateRank;
+        this.updateColumns = new int[maxUpdateRank];
+        this.updateDeltas = new double[maxUpdateRank][];
+        this.updateSolutions = new double[maxUpdateRank][];
+        this.capacitance = new double[maxUpdateRank * maxUpdateRank];
+        this.capacitancePivots = new int[maxUpdateRank];
+        this.capacitanceWork = new double[maxUpdateRank];
+    }
+
+    @Override
+    public void setStateSize(int newSize) {
+        if(result == null || size != newSize) {
+            size = newSize;
+            result = new DMatrixRMaj(newSize, 1);
+            rowPermutation = new int[newSize];
+            lPointers = new int[newSize + 1];
+            uPointers = new int[newSize + 1];
+            work = new double[newSize];
+            permuted = new double[newSize];
+            scatter = new double[newSize];
+            Arrays.fill(updateSolutions, null);
+            stack = new int[2 * newSize];
+            marked = new boolean[newSize];
+        }
+        // State size is set after every structure change, analysis has to be redone.
+        analysedMatrix = null;
+        factorized = false;
+        updateRank = 0;
+    }
+
+    @Override
+    public void zero() {
+        factorized = false;
+        if(result != null)
+            result.zero();
+    }
+
+    @Override
+    public void setInitialGuess(DMatrixRMaj guess) {
+        // Direct solver doesn't need a starting point.
+    }
+
+    @Override
+    public void setInterface(boolean[] interfaceUnknowns) {
+        // Whole system is factorized at once, see `PartitionedSolver` for the decomposed variant.
+    }
+
+    // True if the last factorization had to fix unknowns which the matrix doesn't determine.
+    public boolean isSingular() {
+        return factorized && singular;
+    }
+
+    @Override
+    public void setDeadline(long deadline) {
+        // Factorization can't be interrupted and resumed.
+    }
+
+    @Override
+    public int getIterations() {
+        // Direct solver, every solve is a single pass.
+        return 1;
+    }
+
+    @Override
+    public boolean hasConverged() {
+        // Solving again with the same factorization won't improve the result.
+        return true;
+    }
+
+    @Override
+    public DMatrixRMaj solve(SparseMatrix A, DMatrixRMaj b) {
+        if(b.getNumRows() == 0)
+            return result;
+
+        if(analysedMatrix != A || analysedStructure != A.getStructureVersion())
+            analyse(A);
+        if(!factorized) {
+            refactorize(A);
+        } else if(factorizedVersion != A.getVersion()) {
+            // Factorization of a singular matrix was altered to fix floating nodes,
+            // it cannot be updated since the changes could have grounded those nodes.
+            if(singular || !updateFactorization(A))
+                refactorize(A);
+            factorizedVersion = A.getVersion();
+        }
+
+        final var x = result.data;
+        factorSolve(b.data, x);
+        if(updateRank > 0)
+            applyUpdate(x);
+        return result;
+    }
+
+    private void refactorize(SparseMatrix A) {
+        refreshValues(A);
+        factorize();
+        A.clearChangedColumns();
+        updateRank = 0;
+        factorized = true;
+        factorizedVersion = A.getVersion();
+    }
+
+    // x = Q * U^-1 * L^-1 * P * b
+    private void factorSolve(double[] b, double[] x) {
+        for(int k = 0; k < size; ++k)
+            permuted[rowPermutation[k]] = b[k];
+        for(int j = 0; j < size; ++j) {
+            final var xj = permuted[j];
+            if(xj == 0)
+                continue;
+            for(int p = lPointers[j] + 1; p < lPointers[j + 1]; ++p)
+                permuted[lIndices[p]] -= lValues[p] * xj;
+        }
+        for(int j = size - 1; j >= 0; --j) {
+            permuted[j] /= uValues[uPointers[j + 1] - 1];
+            final var xj = permuted[j];
+            if(xj == 0)
+                continue;
+            for(int p = uPointers[j]; p < uPointers[j + 1] - 1; ++p)
+                permuted[uIndices[p]] -= uValues[p] * xj;
+        }
+        for(int k = 0; k < size; ++k)
+            x[columnOrder[k]] = permuted[k];
+    }
+
+    /*
+     * Every column changed since the factorization is a rank-1 correction of the factorized matrix,
+     * A = A0 + U * V^T where U holds the column differences and V the matching unit vectors.
+     * Sherman-Morrison-Woodbury formula gives the solution as
+     *   A^-1 * b = y - Z * (I + V^T * Z)^-1 * V^T * y, where y = A0^-1 * b and Z = A0^-1 * U
+     * Columns of Z are only recalculated for the columns which changed since the last update.
+     */
+    private boolean updateFactorization(SparseMatrix A) {
+        final int count = A.changedColumnCount();
+        if(count > maxUpdateRank)
+            return false;
+
+        final var columns = A.changedColumns();
+        for(int slot = 0; slot < count; ++slot) {
+            final int column = columns[slot];
+            final int start = columnPointers[column];
+            final int length = columnPointers[column + 1] - start;
+
+            boolean reuse = slot < updateRank && updateColumns[slot] == column;
+            if(updateDeltas[slot] == null || updateDeltas[slot].length < length) {
+                updateDeltas[slot] = new double[length];
+                reuse = false;
+            }
+            final var delta = updateDeltas[slot];
+            for(int p = 0; p < length; ++p) {
+                final var value = A.get(rowIndices[start + p], column) - columnValues[start + p];
+                if(value != delta[p]) {
+                    delta[p] = value;
+                    reuse = false;
+                }
+            }
+            if(reuse)
+                continue;
+
+            updateColumns[slot] = column;
+            if(updateSolutions[slot] == null)
+                updateSolutions[slot] = new double[size];
+            for(int p = 0; p < length; ++p)
+                scatter[rowIndices[start + p]] = delta[p];
+            factorSolve(scatter, updateSolutions[slot]);
+            for(int p = 0; p < length; ++p)
+                scatter[rowIndices[start + p]] = 0;
+        }
+        updateRank = count;
+        return factorizeCapacitance();
+    }
+
+    // Dense LU factorization of the small capacitance matrix with partial pivoting.
+    private boolean factorizeCapacitance() {
+        final int k = updateRank;
+        double largest = 0;
+        for(int a = 0; a < k; ++a) {
+            for(int b = 0; b < k; ++b) {
+                final var value = (a == b ? 1 : 0) + updateSolutions[b][updateColumns[a]];
+                capacitance[a * k + b] = value;
+                largest = Math.max(largest, Math.abs(value));
+            }
+        }
+
+        for(int j = 0; j < k; ++j) {
+            int pivot = j;
+            for(int i = j + 1; i < k; ++i) {
+                if(Math.abs(capacitance[i * k + j]) > Math.abs(capacitance[pivot * k + j]))
+                    pivot = i;
+            }
+            // Updated matrix is (close to) singular, full factorization will handle it.
+            if(Math.abs(capacitance[pivot * k + j]) <= SINGULAR_TOLERANCE * largest)
+                return false;
+            capacitancePivots[j] = pivot;
+            if(pivot != j) {
+                for(int m = 0; m < k; ++m) {
+                    final var temp = capacitance[j * k + m];
+                    capacitance[j * k + m] = capacitance[pivot * k + m];
+                    capacitance[pivot * k + m] = temp;
+                }
+            }
+            for(int i = j + 1; i < k; ++i) {
+                final var factor = capacitance[i * k + j] /= capacitance[j * k + j];
+                for(int m = j + 1; m < k; ++m)
+                    capacitance[i * k + m] -= factor * capacitance[j * k + m];
+            }
+        }
+        return true;
+    }
+
+    // x = x - Z * C^-1 * V^T * x
+    private void applyUpdate(double[] x) {
+        final int k = updateRank;
+        final var w = capacitanceWork;
+        for(int a = 0; a < k; ++a)
+            w[a] = x[updateColumns[a]];
+
+        for(int j = 0; j < k; ++j) {
+            final int pivot = capacitancePivots[j];
+            if(pivot != j) {
+                final var temp = w[j];
+                w[j] = w[pivot];
+                w[pivot] = temp;
+            }
+        }
+        for(int i = 0; i < k; ++i) {
+            for(int j = 0; j < i; ++j)
+                w[i] -= capacitance[i * k + j] * w[j];
+        }
+        for(int i = k - 1; i >= 0; --i) {
+            for(int j = i + 1; j < k; ++j)
+                w[i] -= capacitance[i * k + j] * w[j];
+            w[i] /= capacitance[i * k + i];
+        }
+
+        for(int a = 0; a < k; ++a) {
+            final var t = w[a];
+            if(t == 0)
+                continue;
+            final var z = updateSolutions[a];
+            for(int i = 0; i < size; ++i)
+                x[i] -= z[i] * t;
+        }
+    }
+
+    private void analyse(SparseMatrix A) {
+        final int n = size;
+        final int nonZero = A.nonZeroCount();
+
+        // Build the column storage of the matrix, numeric factorization works on columns.
+        columnPointers = new int[n + 1];
+        for(int row = 0; row < n; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            for(int i = 0; i < A.rowLength(row); ++i)
+                ++columnPointers[rowColumns[i] + 1];
+        }
+        for(int column = 0; column < n; ++column)
+            columnPointers[column + 1] += columnPointers[column];
+
+        rowIndices = new int[nonZero];
+        columnValues = new double[nonZero];
+        valueMap = new int[nonZero];
+        final var next = Arrays.copyOf(columnPointers, n);
+        int t = 0;
+        for(int row = 0; row < n; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                final int position = next[rowColumns[i]]++;
+                rowIndices[position] = row;
+                valueMap[t++] = position;
+            }
+        }
+
+        columnOrder = reverseCuthillMcKee(A);
+
+        // Initial guess of the factor sizes, they grow during factorization if needed.
+        final int capacity = 4 * nonZero + n;
+        if(lIndices == null || lIndices.length < capacity) {
+            lIndices = new int[capacity];
+            lValues = new double[capacity];
+            uIndices = new int[capacity];
+            uValues = new double[capacity];
+        }
+
+        analysedMatrix = A;
+        analysedStructure = A.getStructureVersion();
+        factorized = false;
+    }
+
+    private void refreshValues(SparseMatrix A) {
+        int t = 0;
+        for(int row = 0; row < size; ++row) {
+            final var rowValues = A.rowValues(row);
+            for(int i = 0; i < A.rowLength(row); ++i)
+                columnValues[valueMap[t++]] = rowValues[i];
+        }
+    }
+
+    /*
+     * Reverse Cuthill-McKee ordering of the pattern of A + A^T. Every connected part of the
+     * network is traversed breadth first from a pseudo-peripheral node, visiting neighbours
+     * in the order of increasing degree.
+     */
+    private int[] reverseCuthillMcKee(SparseMatrix A) {
+        final int n = size;
+
+        // Adjacency of A + A^T without the diagonal, duplicate entries don't matter here.
+        final var adjacencyPointers = new int[n + 1];
+        for(int row = 0; row < n; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                if(rowColumns[i] == row)
+                    continue;
+                ++adjacencyPointers[row + 1];
+                ++adjacencyPointers[rowColumns[i] + 1];
+            }
+        }
+        for(int i = 0; i < n; ++i)
+            adjacencyPointers[i + 1] += adjacencyPointers[i];
+        final var adjacency = new int[adjacencyPointers[n]];
+        final var next = Arrays.copyOf(adjacencyPointers, n);
+        for(int row = 0; row < n; ++row) {
+            final var rowColumns = A.rowColumns(row);
+            for(int i = 0; i < A.rowLength(row); ++i) {
+                final var column = rowColumns[i];
+                if(column == row)
+                    continue;
+                adjacency[next[row]++] = column;
+                adjacency[next[column]++] = row;
+            }
+        }
+
+        final var order = new int[n];
+        final var visited = new boolean[n];
+        final var levels = new int[n];
+        Arrays.fill(levels, -1);
+        int count = 0;
+        for(int start = 0; start < n; ++start) {
+            if(visited[start])
+                continue;
+
+            final int root = peripheralNode(start, adjacencyPointers, adjacency, levels, order, count);
+            visited[root] = true;
+            order[count++] = root;
+            int head = count - 1;
+            while(head < count) {
+                final int node = order[head++];
+                final int first = count;
+                for(int p = adjacencyPointers[node]; p < adjacencyPointers[node + 1]; ++p) {
+                    final int neighbour = adjacency[p];
+                    if(visited[neighbour])
+                        continue;
+                    visited[neighbour] = true;
+                    order[count++] = neighbour;
+                }
+                // Insertion sort of the new nodes by degree, there are only a few of them.
+                for(int i = first + 1; i < count; ++i) {
+                    final int value = order[i];
+                    final int degree = adjacencyPointers[value + 1] - adjacencyPointers[value];
+                    int j = i - 1;
+                    while(j >= first && adjacencyPointers[order[j] + 1] - adjacencyPointers[order[j]] > degree) {
+                        order[j + 1] = order[j];
+                        --j;
+                    }
+                    order[j + 1] = value;
+                }
+            }
+        }
+
+        for(int i = 0, j = n - 1; i < j; ++i, --j) {
+            final int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        return order;
+    }
+
+    /*
+     * Finds a node far away from the start node by repeating breadth first searches from
+     * the lowest degree node of the last level for as long as the number of levels grows.
+     * Unused part of the order array (from `offset`) is used as the queue.
+     */
+    private static int peripheralNode(int start, int[] adjacencyPointers, int[] adjacency, int[] levels, int[] queue, int offset) {
+        int root = start;
+        int eccentricity = -1;
+        while(true) {
+            int head = offset, tail = offset;
+            queue[tail++] = root;
+            levels[root] = 0;
+            int lastLevelStart = offset;
+            while(head < tail) {
+                final int node = queue[head++];
+                if(levels[node] != levels[queue[lastLevelStart]])
+                    lastLevelStart = head - 1;
+                for(int p = adjacencyPointers[node]; p < adjacencyPointers[node + 1]; ++p) {
+                    final int neighbour = adjacency[p];
+                    if(levels[neighbour] >= 0)
+                        continue;
+                    levels[neighbour] = levels[node] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+
+            final int depth = levels[queue[tail - 1]];
+            int candidate = queue[lastLevelStart];
+            int candidateDegree = Integer.MAX_VALUE;
+            for(int i = lastLevelStart; i < tail; ++i) {
+                final int node = queue[i];
+                final int degree = adjacencyPointers[node + 1] - adjacencyPointers[node];
+                if(degree < candidateDegree) {
+                    candidate = node;
+                    candidateDegree = degree;
+                }
+            }
+            for(int i = offset; i < tail; ++i)
+                levels[queue[i]] = -1;
+
+            if(depth <= eccentricity)
+                return root;
+            eccentricity = depth;
+            root = candidate;
+        }
+    }
+
+    private void factorize() {
+        final int n = size;
+        Arrays.fill(rowPermutation, -1);
+        singular = false;
+        int lCount = 0, uCount = 0;
+        // Unpivoted row used for singular columns, rows only ever get pivoted so this cursor only moves forward.
+        int freeRow = 0;
+
+        for(int k = 0; k < n; ++k) {
+            lPointers[k] = lCount;
+            uPointers[k] = uCount;
+
+            final int column = columnOrder[k];
+            // work = L \ A(:, column)
+            final int top = sparseLowerSolve(column);
+
+            final int reach = n - top + 1;
+            if(lCount + reach > lIndices.length) {
+                lIndices = Arrays.copyOf(lIndices, 2 * lIndices.length + reach);
+                lValues = Arrays.copyOf(lValues, lIndices.length);
+            }
+            if(uCount + reach > uIndices.length) {
+                uIndices = Arrays.copyOf(uIndices, 2 * uIndices.length + reach);
+                uValues = Arrays.copyOf(uValues, uIndices.length);
+            }
+
+            // Find the pivot and store the U part of the column.
+            int pivotRow = -1;
+            double largest = -1;
+            for(int p = top; p < n; ++p) {
+                final int row = stack[p];
+                if(rowPermutation[row] < 0) {
+                    final var value = Math.abs(work[row]);
+                    if(value > largest) {
+                        largest = value;
+                        pivotRow = row;
+                    }
+                } else {
+                    uIndices[uCount] = rowPermutation[row];
+                    uValues[uCount++] = work[row];
+                }
+            }
+
+            double scale = 0;
+            for(int p = columnPointers[column]; p < columnPointers[column + 1]; ++p)
+                scale = Math.max(scale, Math.abs(columnValues[p]));
+
+            double pivot;
+            if(pivotRow == -1 || largest <= SINGULAR_TOLERANCE * scale) {
+                if(rowPermutation[column] < 0) {
+                    pivotRow = column;
+                } else if(pivotRow == -1) {
+                    while(rowPermutation[freeRow] >= 0)
+                        ++freeRow;
+                    pivotRow = freeRow;
+                }
+                pivot = 1;
+                singular = true;
+            } else {
+                if(rowPermutation[column] < 0 && Math.abs(work[column]) >= largest * PIVOT_TOLERANCE)
+                    pivotRow = column;
+                pivot = work[pivotRow];
+            }
+
+            // Diagonal is the last element of the U column and the first element of the L column.
+            uIndices[uCount] = k;
+            uValues[uCount++] = pivot;
+            rowPermutation[pivotRow] = k;
+            lIndices[lCount] = pivotRow;
+            lValues[lCount++] = 1;
+            for(int p = top; p < n; ++p) {
+                final int row = stack[p];
+                if(rowPermutation[row] < 0) {
+                    lIndices[lCount] = row;
+                    lValues[lCount++] = work[row] / pivot;
+                }
+                work[row] = 0;
+            }
+        }
+        lPointers[n] = lCount;
+        uPointers[n] = uCount;
+
+        // Rows of L were stored with original indices, convert them into pivot order.
+        for(int p = 0; p < lCount; ++p)
+            lIndices[p] = rowPermutation[lIndices[p]];
+    }
+
+    // Solves L * x = A(:, column) for the partially built L, the nonzero pattern of x is stack[top..n).
+    private int sparseLowerSolve(int column) {
+        final int top = reach(column);
+        for(int p = columnPointers[column]; p < columnPointers[column + 1]; ++p)
+            work[rowIndices[p]] = columnValues[p];
+        for(int px = top; px < size; ++px) {
+            final int j = stack[px];
+            final int J = rowPermutation[j];
+            if(J < 0)
+                continue;
+            final var xj = work[j];
+            for(int p = lPointers[J] + 1; p < lPointers[J + 1]; ++p)
+                work[lIndices[p]] -= lValues[p] * xj;
+        }
+        return top;
+    }
+
+    // Nonzero pattern of L \ A(:, column) in topological order, stored in stack[top..n).
+    private int reach(int column) {
+        int top = size;
+        for(int p = columnPointers[column]; p < columnPointers[column + 1]; ++p) {
+            if(!marked[rowIndices[p]])
+                top = depthFirstSearch(rowIndices[p], top);
+        }
+        for(int p = top; p < size; ++p)
+            marked[stack[p]] = false;
+        return top;
+    }
+
+    // Non-recursive depth first search through the graph of L, the first half of the stack array
+    // holds the recursion stack and the output, second half holds the positions within each column.
+    private int depthFirstSearch(int node, int top) {
+        final int n = size;
+        int head = 0;
+        stack[0] = node;
+        while(head >= 0) {
+            final int j = stack[head];
+            final int J = rowPermutation[j];
+            if(!marked[j]) {
+                marked[j] = true;
+                stack[n + head] = J < 0 ? 0 : lPointers[J];
+            }
+            boolean done = true;
+            final int end = J < 0 ? 0 : lPointers[J + 1];
+            for(int p = stack[n + head]; p < end; ++p) {
+                final int i = lIndices[p];
+                if(marked[i])
+                    continue;
+                stack[n + head] = p;
+                stack[++head] = i;
+                done = false;
+                break;
+            }
+            if(done) {
+                --head;
+                stack[--top] = j;
+            }
+        }
+        return top;
+    }
+}
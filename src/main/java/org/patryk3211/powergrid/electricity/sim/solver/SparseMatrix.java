@@ -0,0 +1,274 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.electricity.sim.solver;
+
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.Arrays;
+
+/*
+ * Square sparse matrix stored row by row (compressed rows with a separate array per row).
+ * Column indices of every row are kept sorted, this way a single element can be found
+ * with a binary search and inserting a new element only moves the elements of one row.
+ * All modifications of the network matrices cost O(row degree) instead of O(n).
+ */
+public class SparseMatrix {
+    private static final int INITIAL_ROW_CAPACITY = 4;
+
+    private int size;
+    private int[][] columns;
+    private double[][] values;
+    private int[] rowLengths;
+    private int nonZeroCount;
+
+    // Incremented on every modification, allows solvers to reuse work done for an unchanged matrix.
+    private int version;
+    private int structureVersion;
+
+    // Columns modified since the last `clearChangedColumns()`, each column is listed once.
+    private boolean[] columnChanged;
+    private int[] changedColumns;
+    private int changedColumnCount;
+
+    public SparseMatrix(int size) {
+        reshape(size);
+    }
+
+    // Resize the matrix, this drops all stored elements.
+    public void reshape(int size) {
+        this.size = size;
+        columns = new int[size][];
+        values = new double[size][];
+        rowLengths = new int[size];
+        nonZeroCount = 0;
+        columnChanged = new boolean[size];
+        changedColumns = new int[size];
+        changedColumnCount = 0;
+        ++version;
+        ++structureVersion;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Number of stored elements, explicit zeros included.
+    public int nonZeroCount() {
+        return nonZeroCount;
+    }
+
+    // Changes whenever any value of the matrix is modified.
+    public int getVersion() {
+        return version;
+    }
+
+    // Changes only when the sparsity pattern of the matrix is modified.
+    public int getStructureVersion() {
+        return structureVersion;
+    }
+
+    public int changedColumnCount() {
+        return changedColumnCount;
+    }
+
+    // Only the first `changedColumnCount()` elements are valid.
+    public int[] changedColumns() {
+        return changedColumns;
+    }
+
+    public void clearChangedColumns() {
+        for(int i = 0; i < changedColumnCount; ++i)
+            columnChanged[changedColumns[i]] = false;
+        changedColumnCount = 0;
+    }
+
+    private void markChanged(int column) {
+        if(!columnChanged[column]) {
+            columnChanged[column] = true;
+            changedColumns[changedColumnCount++] = column;
+        }
+    }
+
+    private void markAllChanged() {
+        for(int column = 0; column < size; ++column)
+            markChanged(column);
+    }
+
+    public int rowLength(int row) {
+        return rowLengths[row];
+    }
+
+    // Raw row storage, only the first `rowLength(row)` elements are valid.
+    public int[] rowColumns(int row) {
+        return columns[row];
+    }
+
+    public double[] rowValues(int row) {
+        return values[row];
+    }
+
+    private int find(int row, int column) {
+        var rowColumns = columns[row];
+        if(rowColumns == null)
+            return -1;
+        return Arrays.binarySearch(rowColumns, 0, rowLengths[row], column);
+    }
+
+    // Returns the position of the element in the row storage, inserting it if it does not exist yet.
+    private int findOrInsert(int row, int column) {
+        int position = find(row, column);
+        if(position >= 0)
+            return position;
+        position = -(position + 1);
+
+        var length = rowLengths[row];
+        if(columns[row] == null) {
+            columns[row] = new int[INITIAL_ROW_CAPACITY];
+            values[row] = new double[INITIAL_ROW_CAPACITY];
+        } else if(columns[row].length == length) {
+            columns[row] = Arrays.copyOf(columns[row], length * 2);
+            values[row] = Arrays.copyOf(values[row], length * 2);
+        }
+        var rowColumns = columns[row];
+        var rowValues = values[row];
+        System.arraycopy(rowColumns, position, rowColumns, position + 1, length - position);
+        System.arraycopy(rowValues, position, rowValues, position + 1, length - position);
+        rowColumns[position] = column;
+        rowValues[position] = 0;
+        rowLengths[row] = length + 1;
+        ++nonZeroCount;
+        ++structureVersion;
+        return position;
+    }
+
+    public boolean contains(int row, int column) {
+        return find(row, column) >= 0;
+    }
+
+    public double get(int row, int column) {
+        int position = find(row, column);
+        return position >= 0 ? values[row][position] : 0;
+    }
+
+    public void set(int row, int column, double value) {
+        if(value == 0) {
+            // Don't grow the pattern for zero elements.
+            int position = find(row, column);
+            if(position >= 0 && values[row][position] != 0) {
+                values[row][position] = 0;
+                markChanged(column);
+                ++version;
+            }
+            return;
+        }
+        int position = findOrInsert(row, column);
+        values[row][position] = value;
+        markChanged(column);
+        ++version;
+    }
+
+    // Unlike `set()` this inserts the element even when adding zero, this way wires
+    // with no conductance (open switches) still reserve their place in the structure.
+    public void add(int row, int column, double value) {
+        int position = findOrInsert(row, column);
+        if(value == 0)
+            return;
+        values[row][position] += value;
+        markChanged(column);
+        ++version;
+    }
+
+    // Zero all values, the sparsity pattern is preserved.
+    public void zero() {
+        for(int row = 0; row < size; ++row) {
+            if(values[row] != null)
+                Arrays.fill(values[row], 0, rowLengths[row], 0);
+        }
+        markAllChanged();
+        ++version;
+    }
+
+    // Copy the other matrix, when the sparsity pattern doesn't change only the modified columns are marked
+    // as changed and the structure version is kept, solvers can reuse their analysis of the previous copy.
+    public void setTo(SparseMatrix other) {
+        if(size != other.size)
+            reshape(other.size);
+        boolean structureChanged = false;
+        boolean valuesChanged = false;
+        for(int row = 0; row < size; ++row) {
+            var length = other.rowLengths[row];
+            if(length == rowLengths[row] && (length == 0 || Arrays.equals(columns[row], 0, length, other.columns[row], 0, length))) {
+                var rowColumns = columns[row];
+                var rowValues = values[row];
+                var otherValues = other.values[row];
+                for(int i = 0; i < length; ++i) {
+                    if(rowValues[i] != otherValues[i]) {
+                        rowValues[i] = otherValues[i];
+                        markChanged(rowColumns[i]);
+                        valuesChanged = true;
+                    }
+                }
+                continue;
+            }
+            structureChanged = true;
+            if(length == 0) {
+                rowLengths[row] = 0;
+                continue;
+            }
+            if(columns[row] == null || columns[row].length < length) {
+                columns[row] = new int[other.columns[row].length];
+                values[row] = new double[other.values[row].length];
+            }
+            System.arraycopy(other.columns[row], 0, columns[row], 0, length);
+            System.arraycopy(other.values[row], 0, values[row], 0, length);
+            rowLengths[row] = length;
+        }
+        nonZeroCount = other.nonZeroCount;
+        if(structureChanged) {
+            markAllChanged();
+            ++version;
+            ++structureVersion;
+        } else if(valuesChanged) {
+            ++version;
+        }
+    }
+
+    // y = A * x
+    public void mult(DMatrixRMaj x, DMatrixRMaj y) {
+        final var xData = x.data;
+        final var yData = y.data;
+        for(int row = 0; row < size; ++row) {
+            final var rowColumns = columns[row];
+            final var rowValues = values[row];
+            double sum = 0;
+            for(int i = 0; i < rowLengths[row]; ++i)
+                sum += rowValues[i] * xData[rowColumns[i]];
+            yData[row] = sum;
+        }
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder();
+        builder.append("Type = sparse, rows = ").append(size).append(", non zero = ").append(nonZeroCount).append('\n');
+        for(int row = 0; row < size; ++row) {
+            for(int i = 0; i < rowLengths[row]; ++i) {
+                builder.append('(').append(row).append(", ").append(columns[row][i]).append(") = ").append(values[row][i]).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -25,8 +25,10 @@ import net.minecraft.util.Formatting;
 import net.minecraft.util.math.BlockPos;
 import org.patryk3211.powergrid.electricity.base.ElectricBlockEntity;
 import org.patryk3211.powergrid.electricity.sim.ElectricWire;
+import org.patryk3211.powergrid.electricity.sim.ResultSubscription;
 import org.patryk3211.powergrid.utility.Lang;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class TransformerBlockEntity extends ElectricBlockEntity implements IHaveGoggleInformation {
@@ -39,6 +41,9 @@ public abstract class TransformerBlockEntity extends ElectricBlockEntity impleme
     protected ElectricWire primaryStray;
     protected ElectricWire secondaryStray;
     protected ElectricWire mutualInductance;
+    // Sum of the power dissipated by the coil wires, updated when their currents change.
+    private float lostPower;
+    private List<ResultSubscription> subscriptions;
 
     public TransformerBlockEntity(BlockEntityType<?> type, BlockPos pos, BlockState state) {
         super(type, pos, state);
@@ -47,7 +52,10 @@ public abstract class TransformerBlockEntity extends ElectricBlockEntity impleme
     @Override
     public void tick() {
         super.tick();
+        applyLostPower(lostPower);
+    }
 
+    private void updateLostPower() {
         float power = 0;
         if(primaryStray != null) {
             var I1 = primaryStray.current();
@@ -64,7 +72,7 @@ public abstract class TransformerBlockEntity extends ElectricBlockEntity impleme
             var P3 = I3 * I3 * mutualInductance.getResistance();
             power += P3;
         }
-        applyLostPower(power);
+        lostPower = power;
     }
 
     @Override
@@ -211,6 +219,17 @@ public abstract class TransformerBlockEntity extends ElectricBlockEntity impleme
             this.primaryStray = null;
             this.mutualInductance = null;
         }
+
+        // Wires can outlive a rebuild, old subscriptions must not stack up on them.
+        if(subscriptions == null)
+            subscriptions = new ArrayList<>();
+        subscriptions.forEach(ResultSubscription::cancel);
+        subscriptions.clear();
+        for(var wire : new ElectricWire[] { this.primaryStray, this.secondaryStray, this.mutualInductance }) {
+            if(wire != null)
+                subscriptions.add(wire.subscribePower(1e-3f, power -> updateLostPower()));
+        }
+        updateLostPower();
     }
 
     @Override
@@ -237,6 +256,7 @@ public abstract class TransformerBlockEntity extends ElectricBlockEntity impleme
         var n2 = Lang.number(secondaryTurns / largestCommonDenominator);
         var ratio = n1.add(Text.of(":")).add(n2);
         ratio.style(Formatting.AQUA).forGoggles(tooltip, 1);
+        electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking);
         return true;
     }
 }
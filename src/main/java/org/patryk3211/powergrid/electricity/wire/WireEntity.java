@@ -42,6 +42,7 @@ import org.patryk3211.powergrid.collections.ModdedSoundEvents;
 import org.patryk3211.powergrid.electricity.GlobalElectricNetworks;
 import org.patryk3211.powergrid.electricity.sim.ElectricWire;
 import org.patryk3211.powergrid.network.packets.EntityDataS2CPacket;
+import org.patryk3211.powergrid.utility.TickProfiler;
 
 import java.util.List;
 
@@ -114,6 +115,16 @@ public abstract class WireEntity extends Entity implements EntityDataS2CPacket.I
 
     @Override
     public void tick() {
+        // Overheating particles of the subclasses are client side only, server work happens here.
+        var start = TickProfiler.start(getWorld());
+        try {
+            tickWire();
+        } finally {
+            TickProfiler.end(TickProfiler.Subsystem.WIRE, this, start);
+        }
+    }
+
+    private void tickWire() {
         super.tick();
         var world = getWorld();
         temperatureUpdate();
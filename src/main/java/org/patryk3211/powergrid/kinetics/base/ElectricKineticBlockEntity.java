@@ -19,6 +19,7 @@ import com.simibubi.create.content.kinetics.base.KineticBlockEntity;
 import com.simibubi.create.foundation.blockEntity.behaviour.BlockEntityBehaviour;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntityType;
+import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
 import org.jetbrains.annotations.Nullable;
 import org.patryk3211.powergrid.electricity.base.ElectricBehaviour;
@@ -56,6 +57,12 @@ public abstract class ElectricKineticBlockEntity extends KineticBlockEntity impl
             thermalBehaviour.applyTickPower(power);
     }
 
+    @Override
+    public boolean addToGoggleTooltip(List<Text> tooltip, boolean isPlayerSneaking) {
+        boolean added = super.addToGoggleTooltip(tooltip, isPlayerSneaking);
+        return electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking) || added;
+    }
+
     @Override
     public void remove() {
         super.remove();
@@ -43,6 +43,11 @@ public abstract class GeneratorBlockEntity extends ElectricKineticBlockEntity {
         return -speed * fieldStrength() * coilConstant;
     }
 
+    @Override
+    public boolean isSimulationObserver() {
+        return true;
+    }
+
     @Override
     public void tick() {
         super.tick();
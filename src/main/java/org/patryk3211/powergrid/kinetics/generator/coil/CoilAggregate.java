@@ -23,6 +23,7 @@ import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.world.World;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.patryk3211.powergrid.network.PacketStatistics;
 import org.patryk3211.powergrid.network.packets.AggregateCoilsS2CPacket;
 
 import java.util.HashSet;
@@ -54,18 +55,21 @@ public class CoilAggregate {
         if(!world.isClient) {
             // Send aggregate to clients
             var packet = new AggregateCoilsS2CPacket(coils);
-            sendToTrackers(packet);
+            var players = sendToTrackers(packet);
+            PacketStatistics.sent(PacketStatistics.Type.AGGREGATE_COILS, packet.size(), players);
         }
         makeOutput(null);
     }
 
-    private <T extends FabricPacket> void sendToTrackers(T packet) {
+    // Returns the number of players the packet was sent to.
+    private <T extends FabricPacket> int sendToTrackers(T packet) {
         assert !world.isClient;
         Set<ServerPlayerEntity> trackers = new HashSet<>();
         coils.forEach(coil -> trackers.addAll(PlayerLookup.tracking(coil)));
         for(var player : trackers) {
             ServerPlayNetworking.send(player, packet);
         }
+        return trackers.size();
     }
 
     public void makeOutput(@Nullable CoilBlockEntity outputCoil) {
@@ -110,6 +110,11 @@ public class CoilBlockEntity extends ElectricBlockEntity implements ICoilEntity
         coupling = builder.couple(1, aggregate != null ? aggregate.totalResistance() : CoilBlock.resistance(), sourceNode, positive, negative);
     }
 
+    @Override
+    public boolean isSimulationObserver() {
+        return true;
+    }
+
     @Override
     public float windingCurrent() {
         if(aggregate == null)
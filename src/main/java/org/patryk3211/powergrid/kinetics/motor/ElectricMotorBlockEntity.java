@@ -20,6 +20,7 @@ import com.simibubi.create.foundation.blockEntity.behaviour.BlockEntityBehaviour
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
 import org.patryk3211.powergrid.electricity.base.ElectricBehaviour;
 import org.patryk3211.powergrid.electricity.base.IElectricEntity;
@@ -55,6 +56,12 @@ public class ElectricMotorBlockEntity extends GeneratingKineticBlockEntity imple
             thermalBehaviour.applyTickPower(power);
     }
 
+    @Override
+    public boolean addToGoggleTooltip(List<Text> tooltip, boolean isPlayerSneaking) {
+        boolean added = super.addToGoggleTooltip(tooltip, isPlayerSneaking);
+        return electricBehaviour.addNetworkMetrics(tooltip, isPlayerSneaking) || added;
+    }
+
     @Override
     public void remove() {
         super.remove();
@@ -123,4 +130,9 @@ public class ElectricMotorBlockEntity extends GeneratingKineticBlockEntity imple
         builder.setTerminalCount(2);
         coil = builder.connect(ElectricMotorBlock.resistance(), builder.terminalNode(0), builder.terminalNode(1));
     }
+
+    @Override
+    public boolean isSimulationObserver() {
+        return true;
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.network;
+
+import net.minecraft.util.Identifier;
+import org.patryk3211.powergrid.collections.ModdedPackets;
+
+/**
+ * Running totals of packets the mod sends to clients, by packet type. Counters are only updated
+ * on the server thread and never reset while the game is running.
+ */
+public class PacketStatistics {
+    public enum Type {
+        ENTITY_DATA(ModdedPackets.ENTITY_DATA_PACKET),
+        AGGREGATE_COILS(ModdedPackets.AGGREGATE_COILS_PACKET);
+
+        public final Identifier id;
+
+        Type(Identifier id) {
+            this.id = id;
+        }
+    }
+
+    private static final long[] packets = new long[Type.values().length];
+    private static final long[] bytes = new long[Type.values().length];
+
+    // Payload of `size` bytes sent to `players` players.
+    public static void sent(Type type, int size, int players) {
+        packets[type.ordinal()] += players;
+        bytes[type.ordinal()] += (long) size * players;
+    }
+
+    public static long packets(Type type) {
+        return packets[type.ordinal()];
+    }
+
+    public static long bytes(Type type) {
+        return bytes[type.ordinal()];
+    }
+}
@@ -42,6 +42,11 @@ public class AggregateCoilsS2CPacket implements FabricPacket {
         coils.forEach(coil -> coilPositions.add(coil.getPos()));
     }
 
+    // Serialized size in bytes, a block position is written as a single long.
+    public int size() {
+        return Integer.BYTES + coilPositions.size() * Long.BYTES;
+    }
+
     @Override
     public void write(PacketByteBuf buf) {
         buf.writeInt(coilPositions.size());
@@ -25,6 +25,7 @@ import net.minecraft.network.listener.ClientPlayPacketListener;
 import net.minecraft.network.packet.Packet;
 import net.minecraft.network.packet.s2c.play.BundleS2CPacket;
 import org.patryk3211.powergrid.collections.ModdedPackets;
+import org.patryk3211.powergrid.network.PacketStatistics;
 
 import java.util.List;
 
@@ -50,15 +51,18 @@ public class EntityDataS2CPacket {
     }
 
     public Packet<ClientPlayPacketListener> packet() {
+        PacketStatistics.sent(PacketStatistics.Type.ENTITY_DATA, buffer.readableBytes(), 1);
         return ServerPlayNetworking.createS2CPacket(ModdedPackets.ENTITY_DATA_PACKET, this.buffer);
     }
 
     public void send() {
         if(entity == null)
             throw new IllegalStateException();
-        for(var player : PlayerLookup.tracking(entity)) {
+        var players = PlayerLookup.tracking(entity);
+        for(var player : players) {
             ServerPlayNetworking.send(player, ModdedPackets.ENTITY_DATA_PACKET, buffer);
         }
+        PacketStatistics.sent(PacketStatistics.Type.ENTITY_DATA, buffer.readableBytes(), players.size());
     }
 
     public interface IConsumer {
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.utility;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Util;
+import org.jetbrains.annotations.Nullable;
+import org.patryk3211.powergrid.PowerGrid;
+import org.patryk3211.powergrid.collections.ModdedConfigs;
+import org.patryk3211.powergrid.electricity.GlobalElectricNetworks;
+import org.patryk3211.powergrid.network.PacketStatistics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exports the mod's counters in Prometheus text format for server operators, either by writing them to
+ * a file (for the textfile collector of node_exporter) or by serving them on a port of the loopback
+ * interface. Counters are collected by {@link TickProfiler} and {@link PacketStatistics}, which only
+ * increment fields, the text is built on the server thread once every export interval.
+ */
+public class MetricsExporter {
+    public enum Mode {
+        OFF,
+        FILE,
+        HTTP
+    }
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static boolean active;
+    private static long ticks;
+    private static int countdown;
+    // Last rendered metrics, served by the HTTP thread.
+    private static volatile byte[] latest = new byte[0];
+
+    @Nullable
+    private static HttpServer httpServer;
+    @Nullable
+    private static ExecutorService httpExecutor;
+    private static int httpPort = -1;
+    // Port which failed to bind, it is not retried until the configuration changes.
+    private static int failedPort = -1;
+
+    public static void init() {
+        ServerTickEvents.END_SERVER_TICK.register(MetricsExporter::tick);
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> stop());
+    }
+
+    // Exporting requires the tick profiler to record sections even if it's disabled in the configuration.
+    public static boolean isActive() {
+        return active;
+    }
+
+    public static Path file() {
+        return FabricLoader.getInstance().getGameDir().resolve(PowerGrid.MOD_ID).resolve("metrics.prom");
+    }
+
+    private static void tick(MinecraftServer server) {
+        ++ticks;
+        var config = ModdedConfigs.server();
+        var mode = config.metricsExport.get();
+        active = mode != Mode.OFF;
+        if(mode != Mode.HTTP && httpServer != null)
+            stopHttp();
+        if(!active) {
+            countdown = 0;
+            return;
+        }
+        if(--countdown > 0)
+            return;
+        countdown = config.metricsInterval.get() * 20;
+
+        var text = render(server).getBytes(StandardCharsets.UTF_8);
+        if(mode == Mode.FILE) {
+            Util.getIoWorkerExecutor().execute(() -> write(text));
+        } else {
+            latest = text;
+            startHttp(config.metricsPort.get());
+        }
+    }
+
+    private static void stop() {
+        stopHttp();
+        active = false;
+        ticks = 0;
+        countdown = 0;
+        failedPort = -1;
+        latest = new byte[0];
+    }
+
+    // The file is replaced atomically so collectors never read a partially written file.
+    private static void write(byte[] text) {
+        var path = file();
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(temporary, text);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch(IOException e) {
+            PowerGrid.LOGGER.warn("Failed to write metrics to {}", path, e);
+        }
+    }
+
+    private static void startHttp(int port) {
+        if(httpServer != null && httpPort == port)
+            return;
+        stopHttp();
+        if(port == failedPort)
+            return;
+        try {
+            var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", MetricsExporter::handle);
+            httpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                var thread = new Thread(runnable, "PowerGrid Metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(httpExecutor);
+            server.start();
+            httpServer = server;
+            httpPort = port;
+            failedPort = -1;
+            PowerGrid.LOGGER.info("Serving metrics at http://{}:{}/metrics", InetAddress.getLoopbackAddress().getHostAddress(), port);
+        } catch(IOException e) {
+            failedPort = port;
+            if(httpExecutor != null) {
+                httpExecutor.shutdownNow();
+                httpExecutor = null;
+            }
+            PowerGrid.LOGGER.warn("Failed to serve metrics on port {}", port, e);
+        }
+    }
+
+    private static void stopHttp() {
+        if(httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if(httpExecutor != null) {
+            httpExecutor.shutdownNow();
+            httpExecutor = null;
+        }
+        httpPort = -1;
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try(exchange) {
+            if(!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            var body = latest;
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if(exchange.getRequestMethod().equals("HEAD") || body.length == 0) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static String render(MinecraftServer server) {
+        var builder = new StringBuilder(4096);
+
+        header(builder, "powergrid_networks", "gauge", "Electrical networks in the world");
+        for(var world : server.getWorlds())
+            sample(builder, "powergrid_networks", "world", world.getRegistryKey().getValue().toString(),
+                    GlobalElectricNetworks.getNetworks(world).size());
+        header(builder, "powergrid_network_nodes", "gauge", "Nodes of all electrical networks in the world");
+        for(var world : server.getWorlds()) {
+            long nodes = 0;
+            for(var network : GlobalElectricNetworks.getNetworks(world))
+                nodes += network.size();
+            sample(builder, "powergrid_network_nodes", "world", world.getRegistryKey().getValue().toString(), nodes);
+        }
+
+        var subsystems = TickProfiler.Subsystem.values();
+        header(builder, "powergrid_tick_seconds_total", "counter", "Time spent in ticking parts of the mod, electric_network includes solves on worker threads");
+        for(var subsystem : subsystems)
+            sample(builder, "powergrid_tick_seconds_total", "subsystem", name(subsystem), TickProfiler.totalTime(subsystem) / 1e9);
+        header(builder, "powergrid_tick_sections_total", "counter", "Timed sections, one per ticked block entity, entity or network");
+        for(var subsystem : subsystems)
+            sample(builder, "powergrid_tick_sections_total", "subsystem", name(subsystem), TickProfiler.totalCalls(subsystem));
+        header(builder, "powergrid_last_tick_seconds", "gauge", "Time spent in ticking parts of the mod during the last server tick");
+        for(var subsystem : subsystems)
+            sample(builder, "powergrid_last_tick_seconds", "subsystem", name(subsystem), TickProfiler.lastTickTime(subsystem) / 1e9);
+        header(builder, "powergrid_last_tick_sections", "gauge", "Block entities, entities or networks ticked during the last server tick");
+        for(var subsystem : subsystems)
+            sample(builder, "powergrid_last_tick_sections", "subsystem", name(subsystem), TickProfiler.lastTickCalls(subsystem));
+
+        var packetTypes = PacketStatistics.Type.values();
+        header(builder, "powergrid_packets_sent_total", "counter", "Packets sent to clients");
+        for(var type : packetTypes)
+            sample(builder, "powergrid_packets_sent_total", "type", type.id.toString(), PacketStatistics.packets(type));
+        header(builder, "powergrid_packet_bytes_sent_total", "counter", "Payload bytes of packets sent to clients");
+        for(var type : packetTypes)
+            sample(builder, "powergrid_packet_bytes_sent_total", "type", type.id.toString(), PacketStatistics.bytes(type));
+
+        header(builder, "powergrid_server_ticks_total", "counter", "Server ticks since the server started");
+        builder.append("powergrid_server_ticks_total ").append(ticks).append('\n');
+        return builder.toString();
+    }
+
+    private static String name(TickProfiler.Subsystem subsystem) {
+        return subsystem.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static void header(StringBuilder builder, String metric, String type, String help) {
+        builder.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+    }
+
+    // Label values are identifiers and enum names, they never need escaping.
+    private static void sample(StringBuilder builder, String metric, String label, String value, long sample) {
+        builder.append(metric).append('{').append(label).append("=\"").append(value).append("\"} ").append(sample).append('\n');
+    }
+
+    private static void sample(StringBuilder builder, String metric, String label, String value, double sample) {
+        builder.append(metric).append('{').append(label).append("=\"").append(value).append("\"} ").append(sample).append('\n');
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.powergrid.utility;
+
+import jdk.jfr.*;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+import org.patryk3211.powergrid.collections.ModdedConfigs;
+import org.patryk3211.powergrid.electricity.GlobalElectricNetworks;
+import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+
+import java.util.*;
+
+/**
+ * Always-on timing of the mod's per tick work on the server thread. Sections are timed with `System.nanoTime()`
+ * and kept for the last minute in per second slots, both per subsystem as a histogram and per object (block
+ * entity, entity or network) to find the worst offenders. Every section is also emitted as a JFR event.
+ * <pre>
+ * var start = TickProfiler.start(world);
+ * ...
+ * TickProfiler.end(TickProfiler.Subsystem.THERMAL, blockEntity, start);
+ * </pre>
+ */
+public class TickProfiler {
+    public static final long NOT_PROFILED = Long.MIN_VALUE;
+    // Seconds of history, queries can't look further back.
+    public static final int HISTORY = 60;
+    // Section times are bucketed by powers of two nanoseconds, the last bucket holds everything above a second.
+    private static final int BUCKETS = 31;
+
+    public enum Subsystem {
+        ELECTRIC_NETWORK,
+        ELECTRIC_TICK,
+        CHEMICAL_VAT,
+        WIRE,
+        THERMAL,
+        MAGNETIZING
+    }
+
+    private static final EventType SECTION_EVENT = EventType.getEventType(SectionEvent.class);
+
+    private static final Histogram[] histograms = new Histogram[Subsystem.values().length];
+    private static final List<Map<Object, Section>> sections = new ArrayList<>();
+    // Objects tracked per subsystem, objects over the limit only count towards the subsystem histogram.
+    private static final int MAX_TRACKED = 1024;
+    // Sections of forgotten objects are reused, once the pool has grown tracking new objects doesn't allocate.
+    private static final ArrayDeque<Section> freeSections = new ArrayDeque<>();
+    // Totals since the server started and of the last complete tick, read by the metrics exporter.
+    private static final long[] totalTime = new long[Subsystem.values().length];
+    private static final long[] totalCalls = new long[Subsystem.values().length];
+    private static final long[] tickTime = new long[Subsystem.values().length];
+    private static final long[] tickCalls = new long[Subsystem.values().length];
+    private static final long[] lastTickTime = new long[Subsystem.values().length];
+    private static final long[] lastTickCalls = new long[Subsystem.values().length];
+
+    private static boolean enabled;
+    private static long epoch = System.nanoTime();
+    private static long second;
+
+    static {
+        for(var subsystem : Subsystem.values()) {
+            histograms[subsystem.ordinal()] = new Histogram();
+            sections.add(new IdentityHashMap<>(MAX_TRACKED));
+        }
+    }
+
+    public static void init() {
+        ServerTickEvents.START_SERVER_TICK.register(server -> advance());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> reset());
+    }
+
+    // Called once per server tick, the configuration and the clock are only read here.
+    private static void advance() {
+        enabled = ModdedConfigs.server().tickProfiler.get() || MetricsExporter.isActive();
+        System.arraycopy(tickTime, 0, lastTickTime, 0, tickTime.length);
+        System.arraycopy(tickCalls, 0, lastTickCalls, 0, tickCalls.length);
+        Arrays.fill(tickTime, 0);
+        Arrays.fill(tickCalls, 0);
+        var now = (System.nanoTime() - epoch) / 1_000_000_000L;
+        if(now == second)
+            return;
+        second = now;
+        // Objects which weren't seen during the whole history are forgotten.
+        for(var map : sections) {
+            var iterator = map.values().iterator();
+            while(iterator.hasNext()) {
+                var section = iterator.next();
+                if(second - section.last >= HISTORY) {
+                    iterator.remove();
+                    release(section);
+                }
+            }
+        }
+    }
+
+    private static void reset() {
+        for(int i = 0; i < histograms.length; ++i)
+            histograms[i] = new Histogram();
+        for(var map : sections) {
+            map.values().forEach(TickProfiler::release);
+            map.clear();
+        }
+        for(var counters : List.of(totalTime, totalCalls, tickTime, tickCalls, lastTickTime, lastTickCalls))
+            Arrays.fill(counters, 0);
+        epoch = System.nanoTime();
+        second = 0;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // Start of a section, only server worlds are profiled.
+    public static long start(@Nullable World world) {
+        if(!enabled || world == null || world.isClient)
+            return NOT_PROFILED;
+        return System.nanoTime();
+    }
+
+    public static void end(Subsystem subsystem, Object key, long start) {
+        if(start == NOT_PROFILED)
+            return;
+        record(subsystem, key, System.nanoTime() - start);
+    }
+
+    // Section timed elsewhere, has to be called on the server thread.
+    public static void record(Subsystem subsystem, Object key, long nanos) {
+        if(!enabled)
+            return;
+        var index = subsystem.ordinal();
+        totalTime[index] += nanos;
+        totalCalls[index] += 1;
+        tickTime[index] += nanos;
+        tickCalls[index] += 1;
+        histograms[index].add(second, nanos);
+        var map = sections.get(index);
+        var section = map.get(key);
+        if(section == null && map.size() < MAX_TRACKED) {
+            section = freeSections.isEmpty() ? new Section() : freeSections.pop();
+            map.put(key, section);
+        }
+        if(section != null)
+            section.add(second, nanos);
+
+        if(SECTION_EVENT.isEnabled()) {
+            var event = new SectionEvent();
+            event.subsystem = subsystem.name();
+            var pos = position(key);
+            if(pos != null) {
+                event.x = pos.getX();
+                event.y = pos.getY();
+                event.z = pos.getZ();
+            }
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    // Time in nanoseconds and sections recorded since the server started.
+    public static long totalTime(Subsystem subsystem) {
+        return totalTime[subsystem.ordinal()];
+    }
+
+    public static long totalCalls(Subsystem subsystem) {
+        return totalCalls[subsystem.ordinal()];
+    }
+
+    // Time in nanoseconds and sections recorded during the last complete server tick.
+    public static long lastTickTime(Subsystem subsystem) {
+        return lastTickTime[subsystem.ordinal()];
+    }
+
+    public static long lastTickCalls(Subsystem subsystem) {
+        return lastTickCalls[subsystem.ordinal()];
+    }
+
+    private static void release(Section section) {
+        section.reset();
+        freeSections.push(section);
+    }
+
+    // Block position of a profiled object, null if it doesn't have one.
+    @Nullable
+    public static BlockPos position(Object key) {
+        if(key instanceof BlockEntity blockEntity)
+            return blockEntity.getPos();
+        if(key instanceof Entity entity)
+            return entity.getBlockPos();
+        if(key instanceof ElectricalNetwork network)
+            return GlobalElectricNetworks.getPosition(network);
+        return null;
+    }
+
+    public record Summary(long time, long calls, long median, long p99, long max) {
+    }
+
+    public record Offender(Object key, long time, long calls, long max) {
+    }
+
+    // Statistics of the subsystem over the last `seconds`, percentiles are upper bounds of histogram buckets.
+    public static Summary summarize(Subsystem subsystem, int seconds) {
+        var histogram = histograms[subsystem.ordinal()];
+        var buckets = new long[BUCKETS];
+        long time = 0, calls = 0, max = 0;
+        for(int slot = 0; slot < HISTORY; ++slot) {
+            if(!inRange(histogram.seconds[slot], seconds))
+                continue;
+            time += histogram.time[slot];
+            calls += histogram.calls[slot];
+            max = Math.max(max, histogram.max[slot]);
+            for(int i = 0; i < BUCKETS; ++i)
+                buckets[i] += histogram.buckets[slot][i];
+        }
+        return new Summary(time, calls, percentile(buckets, calls, 0.5), percentile(buckets, calls, 0.99), max);
+    }
+
+    // Objects of the subsystem which took the most time over the last `seconds`.
+    public static List<Offender> top(Subsystem subsystem, int seconds, int count) {
+        List<Offender> offenders = new ArrayList<>();
+        for(var entry : sections.get(subsystem.ordinal()).entrySet()) {
+            var section = entry.getValue();
+            long time = 0, calls = 0, max = 0;
+            for(int slot = 0; slot < HISTORY; ++slot) {
+                if(!inRange(section.seconds[slot], seconds))
+                    continue;
+                time += section.time[slot];
+                calls += section.calls[slot];
+                max = Math.max(max, section.max[slot]);
+            }
+            if(calls > 0)
+                offenders.add(new Offender(entry.getKey(), time, calls, max));
+        }
+        offenders.sort(Comparator.comparingLong(Offender::time).reversed());
+        return offenders.size() > count ? offenders.subList(0, count) : offenders;
+    }
+
+    private static boolean inRange(long slotSecond, int seconds) {
+        return slotSecond >= 0 && second - slotSecond < Math.min(seconds, HISTORY);
+    }
+
+    private static long percentile(long[] buckets, long calls, double fraction) {
+        if(calls == 0)
+            return 0;
+        var target = (long) Math.ceil(calls * fraction);
+        long sum = 0;
+        for(int i = 0; i < BUCKETS; ++i) {
+            sum += buckets[i];
+            if(sum >= target)
+                return 1L << (i + 1);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static int bucket(long nanos) {
+        if(nanos <= 1)
+            return 0;
+        return Math.min(63 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+    }
+
+    // Per second slots, a slot is cleared when it's reused for a new second.
+    private static class Slots {
+        final long[] seconds = new long[HISTORY];
+        final long[] time = new long[HISTORY];
+        final long[] calls = new long[HISTORY];
+        final long[] max = new long[HISTORY];
+
+        Slots() {
+            Arrays.fill(seconds, -1);
+        }
+
+        int slot(long second) {
+            var slot = (int) (second % HISTORY);
+            if(seconds[slot] != second) {
+                seconds[slot] = second;
+                time[slot] = 0;
+                calls[slot] = 0;
+                max[slot] = 0;
+                clear(slot);
+            }
+            return slot;
+        }
+
+        void clear(int slot) {
+        }
+
+        void reset() {
+            Arrays.fill(seconds, -1);
+        }
+
+        int add(long second, long nanos) {
+            var slot = slot(second);
+            time[slot] += nanos;
+            calls[slot] += 1;
+            if(nanos > max[slot])
+                max[slot] = nanos;
+            return slot;
+        }
+    }
+
+    private static class Histogram extends Slots {
+        final long[][] buckets = new long[HISTORY][BUCKETS];
+
+        @Override
+        void clear(int slot) {
+            Arrays.fill(buckets[slot], 0);
+        }
+
+        @Override
+        int add(long second, long nanos) {
+            var slot = super.add(second, nanos);
+            buckets[slot][bucket(nanos)] += 1;
+            return slot;
+        }
+    }
+
+    private static class Section extends Slots {
+        long last;
+
+        @Override
+        int add(long second, long nanos) {
+            last = second;
+            return super.add(second, nanos);
+        }
+    }
+
+    @Name("powergrid.TickSection")
+    @Label("Tick Section")
+    @Category("PowerGrid")
+    @Description("Time spent in one of the profiled subsystems")
+    @StackTrace(false)
+    public static class SectionEvent extends Event {
+        @Label("Subsystem")
+        public String subsystem;
+        @Label("X")
+        public int x;
+        @Label("Y")
+        public int y;
+        @Label("Z")
+        public int z;
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long time;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.SwitchedWire;
+import org.patryk3211.powergrid.electricity.sim.node.FloatingNode;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+
+public class DirectSolverTests extends TestHelper {
+    @Test
+    void testResistorDivider() {
+        var Net = new Network(SolverType.SPARSE_LU);
+
+        var V1 = Net.V(5);
+        var N1 = Net.N();
+
+        Net.W(10.0f, V1, N1);
+        Net.W(20.0f, N1, null);
+
+        Net.calculate();
+
+        Assertions.assertEquals(5f * 20 / (10 + 20), N1.getVoltage(), 1e-6, "Resistor divider node has incorrect voltage");
+        Assertions.assertEquals(5f / 30, V1.getCurrent(), 1e-6, "Voltage source current is incorrect");
+
+        V1.setVoltage(10);
+        Net.calculate();
+
+        Assertions.assertEquals(10f * 20 / (10 + 20), N1.getVoltage(), 1e-6, "Resistor divider node has incorrect voltage after voltage change");
+        Assertions.assertEquals(10f / 30, V1.getCurrent(), 1e-6, "Voltage source current is incorrect after voltage change");
+    }
+
+    @Test
+    void testResistorLadder() {
+        var Net = new Network(SolverType.SPARSE_LU);
+
+        final int length = 10000;
+        var V1 = Net.V(10);
+        var N = new FloatingNode[length];
+        for(int i = 0; i < length; ++i) {
+            N[i] = Net.N();
+            Net.W(1.0f, i == 0 ? V1 : N[i - 1], N[i]);
+        }
+        Net.W(1.0f, N[length - 1], null);
+
+        Net.calculate();
+
+        for(int i = 0; i < length; i += 1000)
+            Assertions.assertEquals(10f * (length - i) / (length + 1), N[i].getVoltage(), 1e-4, "Ladder node has incorrect voltage");
+        Assertions.assertEquals(10f / (length + 1), V1.getCurrent(), 1e-6, "Voltage source current is incorrect");
+    }
+
+    @Test
+    void testFloatingSecondary() {
+        var Net = new Network(SolverType.SPARSE_LU);
+
+        var V1 = Net.V(5);
+        var S1 = Net.N();
+        var S2 = Net.N();
+
+        var TR = Net.TR(1, V1, S1, S2);
+        Net.W(10, S1, S2);
+
+        Net.calculate();
+
+        Assertions.assertEquals(5f / 10, V1.getCurrent(), 1e-6, "Voltage source has incorrect current");
+        Assertions.assertEquals(5, Math.abs(S1.getVoltage() - S2.getVoltage()), 1e-5, "Transformer secondary has incorrect voltage");
+
+        TR.setResistance(10);
+        Net.calculate();
+
+        Assertions.assertEquals(5f / 20, V1.getCurrent(), 1e-6, "Voltage source has incorrect current after impedance change");
+        Assertions.assertEquals(2.5f, Math.abs(S1.getVoltage() - S2.getVoltage()), 1e-5, "Transformer secondary has incorrect voltage after impedance change");
+    }
+
+    @Test
+    void testSwitch() {
+        var Net = new Network(SolverType.SPARSE_LU);
+
+        var V1 = Net.V(5);
+        var N1 = Net.N();
+
+        Net.W(1, N1, null);
+        var Switch = Net.SW(1, V1, N1);
+
+        Net.calculate();
+
+        Assertions.assertEquals(2.5f, N1.getVoltage(), 1e-6, "Incorrect voltage at node 1");
+        Assertions.assertEquals(5.0f / 2f, V1.getCurrent(), 1e-6, "Voltage source has incorrect current");
+
+        Switch.setState(false);
+        Net.calculate();
+
+        Assertions.assertEquals(0f, N1.getVoltage(), 1e-6, "Incorrect voltage at node 1");
+        Assertions.assertEquals(0f, V1.getCurrent(), 1e-6, "Voltage source has incorrect current");
+
+        Switch.setState(true);
+        Net.calculate();
+
+        Assertions.assertEquals(2.5f, N1.getVoltage(), 1e-6, "Incorrect voltage at node 1");
+        Assertions.assertEquals(5.0f / 2f, V1.getCurrent(), 1e-6, "Voltage source has incorrect current");
+    }
+
+    @Test
+    void testCurrentSourceWithTransformer() {
+        var Net = new Network(SolverType.SPARSE_LU);
+
+        var C1 = Net.C(2);
+        var P = Net.N();
+        var S = Net.N();
+
+        Net.W(5, C1, P);
+        Net.W(10, P, null);
+        Net.TR(2, P, S);
+        Net.W(20, S, null);
+
+        Net.calculate();
+
+        // Secondary load seen from the primary is 20 / 2^2 = 5 Ohm, in parallel with 10 Ohm.
+        Assertions.assertEquals(2f * (10f * 5f / 15f), P.getVoltage(), 1e-5, "Primary voltage is incorrect");
+        Assertions.assertEquals(2 * P.getVoltage(), S.getVoltage(), 1e-5, "Secondary voltage is incorrect");
+    }
+
+    @Test
+    void testRepeatedResistanceChange() {
+        var Net = new Network(SolverType.SPARSE_LU);
+
+        var V1 = Net.V(10);
+        var N1 = Net.N();
+        var N2 = Net.N();
+
+        Net.W(10, V1, N1);
+        var Filament = Net.W(10, N1, N2);
+        Net.W(10, N2, null);
+
+        Net.calculate();
+
+        for(int tick = 1; tick <= 50; ++tick) {
+            float R = 10 + tick;
+            Filament.setResistance(R);
+            Net.calculate();
+
+            Assertions.assertEquals(10f / (20 + R), V1.getCurrent(), 1e-6, "Voltage source current is incorrect at tick " + tick);
+            Assertions.assertEquals(10f * (10 + R) / (20 + R), N1.getVoltage(), 1e-5, "Node 1 voltage is incorrect at tick " + tick);
+            Assertions.assertEquals(10f * 10 / (20 + R), N2.getVoltage(), 1e-5, "Node 2 voltage is incorrect at tick " + tick);
+        }
+    }
+
+    @Test
+    void testSwitchBank() {
+        var Net = new Network(SolverType.SPARSE_LU);
+
+        final int count = 40;
+        var V1 = Net.V(5);
+        var Switches = new SwitchedWire[count];
+        for(int i = 0; i < count; ++i) {
+            var N = Net.N();
+            Switches[i] = Net.SW(10, V1, N, false);
+            Net.W(10, N, null);
+        }
+
+        Net.calculate();
+        Assertions.assertEquals(0f, V1.getCurrent(), 1e-6, "Voltage source current is incorrect with all switches off");
+
+        // Turning the switches on one by one goes over the update rank limit.
+        for(int i = 0; i < count; ++i) {
+            Switches[i].setState(true);
+            Net.calculate();
+            Assertions.assertEquals(5f / 20 * (i + 1), V1.getCurrent(), 1e-5, "Voltage source current is incorrect with " + (i + 1) + " switches on");
+        }
+
+        for(int i = 0; i < count; i += 2) {
+            Switches[i].setState(false);
+            Net.calculate();
+            Assertions.assertEquals(5f / 20 * (count - i / 2 - 1), V1.getCurrent(), 1e-5, "Voltage source current is incorrect after turning switch " + i + " off");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.NetworkSnapshot;
+import org.patryk3211.powergrid.electricity.sim.node.IElectricNode;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+
+import java.io.*;
+
+public class NetworkSnapshotTests extends TestHelper {
+    @Test
+    void testSnapshotReplay() throws IOException {
+        var Net = new Network();
+
+        var V1 = Net.V(10);
+        var N1 = Net.N();
+        var N2 = Net.N();
+        var C1 = Net.C(0.5f);
+        var S1 = Net.N();
+        var S2 = Net.N();
+        var S3 = Net.N();
+
+        Net.W(5, V1, N1);
+        Net.SW(10, N1, N2, true);
+        Net.SW(1, N1, null, false);
+        Net.W(20, N2, null);
+        Net.W(40, C1, null);
+        Net.W(8, C1, N2);
+        Net.TR(2, 0.5f, N2, S1);
+        Net.W(15, S1, null);
+        Net.TR(0.5f, N1, S2, S3);
+        Net.W(30, S2, S3);
+        Net.W(25, S3, null);
+        Net.calculate();
+
+        var original = new IElectricNode[] { V1, N1, N2, C1, S1, S2, S3 };
+
+        var buffer = new ByteArrayOutputStream();
+        NetworkSnapshot.capture(Net.network).write(new DataOutputStream(buffer));
+        var snapshot = NetworkSnapshot.read(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+
+        Assertions.assertEquals(original.length, snapshot.nodeCount(), "Snapshot has incorrect node count");
+        Assertions.assertEquals(9, snapshot.wireCount(), "Snapshot has incorrect wire count");
+        Assertions.assertEquals(2, snapshot.couplingCount(), "Snapshot has incorrect coupling count");
+
+        for(var solver : SolverType.values()) {
+            var restored = snapshot.restore(solver);
+            restored.network().calculate();
+            var nodes = restored.nodes();
+            for(int i = 0; i < original.length; ++i) {
+                Assertions.assertEquals(original[i].getVoltage(), nodes[i].getVoltage(), 1e-4, "Replayed node " + i + " has incorrect voltage with " + solver);
+                Assertions.assertEquals(original[i].getCurrent(), nodes[i].getCurrent(), 1e-4, "Replayed node " + i + " has incorrect current with " + solver);
+            }
+            Assertions.assertTrue(restored.network().getResidual() < 1e-5, "Replayed solve with " + solver + " has a large residual");
+        }
+    }
+
+    @Test
+    void testInvalidSnapshot() {
+        var input = new DataInputStream(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+        Assertions.assertThrows(IOException.class, () -> NetworkSnapshot.read(input), "Invalid data was read as a snapshot");
+    }
+}
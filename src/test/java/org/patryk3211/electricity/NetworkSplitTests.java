@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class NetworkSplitTests extends TestHelper {
+    @Test
+    void testSplitAfterWireRemoval() {
+        var Net = new Network();
+
+        var V1 = Net.V(10);
+        var N1 = Net.N();
+        var N2 = Net.N();
+        var N3 = Net.N();
+        var V2 = Net.V(5);
+        Net.W(10, V1, N1);
+        Net.W(10, N1, null);
+        var Link = Net.W(1, N1, N2);
+        Net.W(10, N2, N3);
+        Net.W(10, N3, V2);
+
+        Net.calculate();
+        Assertions.assertFalse(Net.network.isSplitPending(), "Network without removals should not be split");
+
+        Link.remove();
+        Assertions.assertTrue(Net.network.isSplitPending(), "Wire removal should mark the network for splitting");
+        var created = Net.network.split();
+        Assertions.assertFalse(Net.network.isSplitPending(), "Split should clear the pending flag");
+        Assertions.assertEquals(1, created.size(), "Network should be split into two parts");
+
+        var other = created.get(0);
+        Assertions.assertEquals(5, Net.network.size() + other.size(), "Nodes were lost during the split");
+        Assertions.assertSame(N2.getNetwork(), N3.getNetwork(), "Connected nodes must stay in the same network");
+        Assertions.assertSame(N3.getNetwork(), V2.getNetwork(), "Connected nodes must stay in the same network");
+        Assertions.assertSame(V1.getNetwork(), N1.getNetwork(), "Connected nodes must stay in the same network");
+        Assertions.assertNotSame(N1.getNetwork(), N2.getNetwork(), "Disconnected nodes must be in different networks");
+
+        // The larger part stays in the original network.
+        Assertions.assertSame(Net.network, N2.getNetwork(), "Larger part should stay in the original network");
+        Net.calculate();
+        other.calculate();
+        Assertions.assertEquals(5, N1.getVoltage(), 1e-4, "Node voltage is incorrect after split");
+        Assertions.assertEquals(5, N2.getVoltage(), 1e-4, "Node voltage is incorrect after split");
+        Assertions.assertEquals(5, N3.getVoltage(), 1e-4, "Node voltage is incorrect after split");
+        Assertions.assertEquals(0.5, V1.getCurrent(), 1e-4, "Source current is incorrect after split");
+
+        // Wires still update the network they were moved into.
+        V2.setVoltage(8);
+        Net.calculate();
+        Assertions.assertEquals(8, N2.getVoltage(), 1e-4, "Node voltage is incorrect after source change");
+    }
+
+    @Test
+    void testCouplingKeepsNetwork() {
+        var Net = new Network();
+
+        var V1 = Net.V(10);
+        var P = Net.N();
+        var S = Net.N();
+        Net.W(1, V1, P);
+        Net.W(10, S, null);
+        Net.TR(2, P, S);
+        var Isolated = Net.N();
+        var Wire = Net.W(10, S, Isolated);
+
+        Wire.remove();
+        var created = Net.network.split();
+        Assertions.assertEquals(1, created.size(), "Only the isolated node should be split off");
+        Assertions.assertSame(created.get(0), Isolated.getNetwork(), "Isolated node should be in the new network");
+        Assertions.assertSame(Net.network, S.getNetwork(), "Coupled nodes must stay in the same network");
+    }
+
+    @Test
+    void testNodeGroup() {
+        var Net = new Network();
+
+        var V1 = Net.V(10);
+        var A = Net.N();
+        var B = Net.N();
+        var Wire = Net.W(10, V1, A);
+        Net.W(10, A, B);
+        var Group = List.of(V1, B);
+        Net.network.addNodeGroup(Group);
+
+        Wire.remove();
+        Assertions.assertTrue(Net.network.split().isEmpty(), "Grouped nodes must not be split");
+
+        Net.network.removeNodeGroup(Group);
+        Assertions.assertEquals(1, Net.network.split().size(), "Nodes should be split after the group is removed");
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+import org.patryk3211.powergrid.electricity.sim.node.FloatingNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class ParallelSolveTests extends TestHelper {
+    @Test
+    void testParallelSolve() {
+        final int count = 16;
+        final int length = 200;
+
+        List<Network> serial = new ArrayList<>();
+        List<FloatingNode[]> serialNodes = new ArrayList<>();
+        List<Network> parallel = new ArrayList<>();
+        List<FloatingNode[]> parallelNodes = new ArrayList<>();
+        for(int i = 0; i < count; ++i) {
+            var Net = new Network();
+            serialNodes.add(Net.ladder(Net.V(10 + i), length));
+            serial.add(Net);
+
+            Net = new Network();
+            parallelNodes.add(Net.ladder(Net.V(10 + i), length));
+            parallel.add(Net);
+        }
+
+        serial.forEach(Network::calculate);
+
+        var pool = new ForkJoinPool(4);
+        try {
+            for(var Net : parallel)
+                Assertions.assertTrue(Net.network.prepare(), "New network must be solved");
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for(var Net : parallel)
+                tasks.add(pool.submit(Net.network::solve));
+            tasks.forEach(ForkJoinTask::join);
+            for(var Net : parallel)
+                Net.network.applyResults();
+        } finally {
+            pool.shutdown();
+        }
+
+        for(int i = 0; i < count; ++i) {
+            Assertions.assertFalse(parallel.get(i).network.needsCalculation(), "Solved network should not need a calculation");
+            for(int j = 0; j < length; ++j)
+                Assertions.assertEquals(serialNodes.get(i)[j].getVoltage(), parallelNodes.get(i)[j].getVoltage(), 1e-5, "Parallel solve result differs");
+        }
+        Assertions.assertFalse(parallel.get(0).network.prepare(), "Unchanged network should not be prepared again");
+    }
+
+    @Test
+    void testPipelinedSolve() {
+        var Net = new Network();
+        var V1 = Net.V(10);
+        var N1 = Net.N();
+        var N2 = Net.N();
+        Net.W(10, V1, N1);
+        Net.W(10, N1, N2);
+        Net.W(20, N2, null);
+
+        var pool = new ForkJoinPool(1);
+        try {
+            Assertions.assertTrue(Net.network.prepare(true), "New network must be solved");
+            var task = pool.submit(Net.network::solve);
+            // Changes made while the snapshot is being solved are picked up by the next solve.
+            V1.setVoltage(20);
+            task.join();
+            Net.network.applyResults();
+            Assertions.assertEquals(7.5, N1.getVoltage(), 1e-4, "Result should use the captured source voltage");
+            Assertions.assertTrue(Net.network.needsCalculation(), "Change during the solve should require another calculation");
+
+            Assertions.assertTrue(Net.network.prepare(true), "Changed network must be solved");
+            task = pool.submit(Net.network::solve);
+            task.join();
+            Net.network.applyResults();
+            Assertions.assertEquals(15, N1.getVoltage(), 1e-4, "Result should use the new source voltage");
+            Assertions.assertFalse(Net.network.needsCalculation(), "Solved network should not need a calculation");
+
+            // Results of a solve started before a structure change are dropped.
+            Net.W(20, N1, null);
+            Assertions.assertTrue(Net.network.prepare(true), "Changed network must be solved");
+            task = pool.submit(Net.network::solve);
+            var N3 = Net.N();
+            Net.W(10, N2, N3);
+            task.join();
+            Net.network.applyResults();
+            Assertions.assertEquals(15, N1.getVoltage(), 1e-4, "Results of a stale structure should not be applied");
+            Assertions.assertTrue(Net.network.needsCalculation(), "Structure change should require another calculation");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testDeadlineSolve() {
+        final int length = 200;
+        var Net = new Network();
+        var source = Net.V(10);
+        var N = Net.ladder(source, length);
+        Net.calculate();
+        var previous = new float[length];
+        for(int i = 0; i < length; ++i)
+            previous[i] = N[i].getVoltage();
+
+        source.setVoltage(20);
+        // Solves which run out of time keep the previous results, the solver continues from its iterate on every call.
+        for(int tick = 1; tick < ElectricalNetwork.MAX_INTERRUPTIONS; ++tick) {
+            Assertions.assertTrue(Net.network.prepare(), "Interrupted network must be solved again");
+            Net.network.solveUntil(System.nanoTime() - 1);
+            Net.network.applyResults();
+            Assertions.assertEquals(1, Net.network.getSolverIterations(), "Expired deadline should stop the solver after one iteration");
+            for(int i = 0; i < length; ++i)
+                Assertions.assertEquals(previous[i], N[i].getVoltage(), "Interrupted solve should not change node results");
+        }
+
+        // Network which keeps running out of time publishes its best iterate.
+        Assertions.assertTrue(Net.network.prepare(), "Interrupted network must be solved again");
+        Net.network.solveUntil(System.nanoTime() - 1);
+        Net.network.applyResults();
+        boolean changed = false;
+        for(int i = 0; i < length; ++i)
+            changed |= previous[i] != N[i].getVoltage();
+        Assertions.assertTrue(changed, "Iterate should be published after repeated interruptions");
+        Assertions.assertTrue(Net.network.needsCalculation(), "Published iterate is not a final result");
+
+        Assertions.assertTrue(Net.network.prepare(), "Interrupted network must be solved again");
+        Net.network.solve();
+        Net.network.applyResults();
+        Assertions.assertFalse(Net.network.needsCalculation(), "Finished network should not need a calculation");
+        for(int i = 0; i < length; ++i)
+            Assertions.assertEquals(previous[i] * 2, N[i].getVoltage(), 1e-4, "Resumed solve result differs");
+    }
+}
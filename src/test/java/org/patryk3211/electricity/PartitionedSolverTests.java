@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.ejml.data.DMatrixRMaj;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.ElectricWire;
+import org.patryk3211.powergrid.electricity.sim.node.FloatingNode;
+import org.patryk3211.powergrid.electricity.sim.solver.PartitionedSolver;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseLUSolver;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
+
+public class PartitionedSolverTests extends TestHelper {
+    // Two circuits coupled by a transformer: unknowns 0-1 and 2-3 are circuit nodes, unknown 4 is the coupling.
+    private static SparseMatrix coupledSystem() {
+        var A = new SparseMatrix(5);
+        A.add(0, 0, 3); A.add(0, 1, -1);
+        A.add(1, 0, -1); A.add(1, 1, 2);
+        A.add(2, 2, 4); A.add(2, 3, -2);
+        A.add(3, 2, -2); A.add(3, 3, 3);
+        A.add(4, 0, 2); A.add(4, 2, -1); A.add(4, 4, 0.5);
+        A.add(0, 4, -2); A.add(2, 4, 1);
+        return A;
+    }
+
+    private static void assertSameSolution(DMatrixRMaj expected, DMatrixRMaj actual, String message) {
+        for(int i = 0; i < expected.getNumRows(); ++i)
+            Assertions.assertEquals(expected.get(i, 0), actual.get(i, 0), 1e-9, message);
+    }
+
+    @Test
+    void testBlockUpdate() {
+        var A = coupledSystem();
+        var b = new DMatrixRMaj(5, 1);
+        b.set(0, 0, 1);
+        b.set(3, 0, 0.5);
+
+        var solver = new PartitionedSolver();
+        solver.setStateSize(5);
+        solver.setInterface(new boolean[] { false, false, false, false, true });
+        var reference = new SparseLUSolver();
+        reference.setStateSize(5);
+
+        assertSameSolution(reference.solve(A, b), solver.solve(A, b), "Partitioned solution is incorrect");
+        Assertions.assertEquals(2, solver.getBlockCount(), "Circuits should be factorized separately");
+        Assertions.assertEquals(1, solver.getInterfaceSize(), "Only the coupling should be in the interface");
+        Assertions.assertEquals(2, solver.getUpdatedBlockCount(), "First solve has to factorize every block");
+
+        // Conductance change in the secondary circuit only touches its block.
+        A.add(3, 3, 1);
+        assertSameSolution(reference.solve(A, b), solver.solve(A, b), "Partitioned solution is incorrect after a conductance change");
+        Assertions.assertEquals(1, solver.getUpdatedBlockCount(), "Only the changed block should be updated");
+
+        // Coupling resistance change doesn't touch any block.
+        A.add(4, 4, 1);
+        b.set(1, 0, -2);
+        assertSameSolution(reference.solve(A, b), solver.solve(A, b), "Partitioned solution is incorrect after a coupling change");
+        Assertions.assertEquals(0, solver.getUpdatedBlockCount(), "No block should be updated");
+    }
+
+    @Test
+    void testTransformerChain() {
+        var Net = new Network(SolverType.SPARSE_LU);
+        var Ref = new Network(SolverType.BICGSTAB);
+        FloatingNode[] nodes = null, refNodes = null;
+        ElectricWire load = null, refLoad = null;
+
+        for(var network : new Network[] { Net, Ref }) {
+            var V1 = network.V(10);
+            var P = network.N();
+            network.W(1, V1, P);
+            network.W(100, P, null);
+
+            // Secondary ladder of the first transformer feeds the second transformer.
+            var S = new FloatingNode[20];
+            for(int i = 0; i < S.length; ++i) {
+                S[i] = network.N();
+                if(i > 0)
+                    network.W(2, S[i - 1], S[i]);
+                network.W(50, S[i], null);
+            }
+            network.TR(2, 1, P, S[0]);
+
+            // Only one terminal of the last secondary is loaded, the other one is only determined by the coupling.
+            var T1 = network.N();
+            var T2 = network.N();
+            network.TR(0.5f, 2, S[S.length - 1], T1, T2);
+            var wire = network.W(10, T1, null);
+
+            if(network == Net) {
+                nodes = new FloatingNode[] { P, S[0], S[10], S[19], T1, T2 };
+                load = wire;
+            } else {
+                refNodes = new FloatingNode[] { P, S[0], S[10], S[19], T1, T2 };
+                refLoad = wire;
+            }
+        }
+
+        Net.calculate();
+        Ref.calculate();
+        for(int i = 0; i < nodes.length; ++i)
+            Assertions.assertEquals(refNodes[i].getVoltage(), nodes[i].getVoltage(), 1e-4, "Node " + i + " has incorrect voltage");
+        Assertions.assertEquals(0, nodes[4].getVoltage(), 1e-5, "Loaded terminal should be at ground potential");
+
+        load.setResistance(20);
+        refLoad.setResistance(20);
+        Net.calculate();
+        Ref.calculate();
+        for(int i = 0; i < nodes.length; ++i)
+            Assertions.assertEquals(refNodes[i].getVoltage(), nodes[i].getVoltage(), 1e-4, "Node " + i + " has incorrect voltage after resistance change");
+    }
+}
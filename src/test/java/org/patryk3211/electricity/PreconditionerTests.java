@@ -0,0 +1,120 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.node.FloatingNode;
+import org.patryk3211.powergrid.electricity.sim.node.VoltageSourceNode;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+
+public class PreconditionerTests extends TestHelper {
+    @Test
+    void testPreconditionedLadder() {
+        final int length = 150;
+
+        var Plain = new Network(SolverType.BICGSTAB);
+        var PlainN = Plain.ladder(Plain.V(10), length);
+        Plain.calculate();
+        var plainIterations = Plain.network.getSolverIterations();
+
+        for(var type : new SolverType[] { SolverType.BICGSTAB_JACOBI, SolverType.BICGSTAB_ILU, SolverType.BICGSTAB_AMG }) {
+            var Net = new Network(type);
+            var N = Net.ladder(Net.V(10), length);
+            Net.calculate();
+
+            Assertions.assertTrue(Net.network.getSolverIterations() <= plainIterations, type + " needed more iterations than the unpreconditioned solver");
+            for(int i = 0; i < length; ++i)
+                Assertions.assertEquals(PlainN[i].getVoltage(), N[i].getVoltage(), 1e-4, type + " ladder node has incorrect voltage");
+        }
+    }
+
+    private static FloatingNode[][] buildMesh(Network Net, VoltageSourceNode source, int size) {
+        var N = new FloatingNode[size][size];
+        for(int i = 0; i < size; ++i) {
+            for(int j = 0; j < size; ++j) {
+                N[i][j] = Net.N();
+                if(i > 0)
+                    Net.W(1.0f, N[i - 1][j], N[i][j]);
+                if(j > 0)
+                    Net.W(1.0f, N[i][j - 1], N[i][j]);
+            }
+        }
+        Net.W(1.0f, source, N[0][0]);
+        Net.W(1.0f, N[size - 1][size - 1], null);
+        return N;
+    }
+
+    @Test
+    void testMultigridMesh() {
+        final int size = 60;
+
+        var Reference = new Network(SolverType.SPARSE_LU);
+        var RefN = buildMesh(Reference, Reference.V(10), size);
+        Reference.calculate();
+
+        var Net = new Network(SolverType.BICGSTAB_AMG);
+        var N = buildMesh(Net, Net.V(10), size);
+        Net.calculate();
+
+        // Unpreconditioned iterations grow with the mesh size, multigrid stays at a small constant.
+        Assertions.assertTrue(Net.network.getSolverIterations() <= 20, "Multigrid preconditioner needed too many iterations");
+        for(int i = 0; i < size; i += 7) {
+            for(int j = 0; j < size; j += 7)
+                Assertions.assertEquals(RefN[i][j].getVoltage(), N[i][j].getVoltage(), 1e-4, "Mesh node has incorrect voltage");
+        }
+
+        // Value change reuses the hierarchy with updated coarse matrices.
+        var Load = Net.W(5.0f, N[size / 2][size / 2], null);
+        var RefLoad = Reference.W(5.0f, RefN[size / 2][size / 2], null);
+        Net.calculate();
+        Reference.calculate();
+        Load.setResistance(0.5f);
+        RefLoad.setResistance(0.5f);
+        Net.calculate();
+        Reference.calculate();
+        Assertions.assertTrue(Net.network.getSolverIterations() <= 20, "Multigrid preconditioner needed too many iterations after a value change");
+        for(int i = 0; i < size; i += 7) {
+            for(int j = 0; j < size; j += 7)
+                Assertions.assertEquals(RefN[i][j].getVoltage(), N[i][j].getVoltage(), 1e-4, "Mesh node has incorrect voltage after a value change");
+        }
+    }
+
+    @Test
+    void testWarmStart() {
+        var Net = new Network(SolverType.BICGSTAB_ILU);
+
+        var V1 = Net.V(10);
+        var N = Net.ladder(V1, 100);
+
+        Net.calculate();
+        Assertions.assertTrue(Net.network.getSolverIterations() > 0, "First solve must iterate");
+
+        // Resistance changed back and forth, previous result is still the solution.
+        var W = Net.W(10, N[99], null);
+        Net.calculate();
+        W.setResistance(20);
+        W.setResistance(10);
+        Assertions.assertTrue(Net.network.needsCalculation(), "Resistance change should require a calculation");
+        Net.calculate();
+        Assertions.assertEquals(0, Net.network.getSolverIterations(), "Unchanged solution should not need any iterations");
+
+        var before = N[50].getVoltage();
+        V1.setVoltage(20);
+        Net.calculate();
+        Assertions.assertEquals(2 * before, N[50].getVoltage(), 1e-4, "Node voltage is incorrect after source change");
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultSubscriptionTests extends TestHelper {
+    @Test
+    void testThreshold() {
+        var Net = new Network();
+        var V1 = Net.V(10);
+        var N1 = Net.N();
+        var W1 = Net.W(10, V1, N1);
+        Net.W(10, N1, null);
+
+        List<Float> voltages = new ArrayList<>();
+        List<Float> currents = new ArrayList<>();
+        N1.subscribeVoltage(0.5f, voltages::add);
+        var currentSubscription = W1.subscribeCurrent(0.01f, currents::add);
+
+        Net.calculate();
+        Assertions.assertEquals(List.of(5f), voltages, "First solve should notify the voltage");
+        Assertions.assertEquals(1, currents.size(), "First solve should notify the current");
+        Assertions.assertEquals(0.5f, currents.get(0), 1e-5);
+
+        // Small changes accumulate until they cross the threshold.
+        V1.setVoltage(10.4f);
+        Net.calculate();
+        Assertions.assertEquals(1, voltages.size(), "Change below threshold should not notify");
+        Assertions.assertEquals(2, currents.size(), "Change above threshold should notify");
+        V1.setVoltage(10.8f);
+        Net.calculate();
+        Assertions.assertEquals(1, voltages.size(), "Change below threshold should not notify");
+        V1.setVoltage(11.2f);
+        Net.calculate();
+        Assertions.assertEquals(2, voltages.size(), "Accumulated change above threshold should notify");
+        Assertions.assertEquals(5.6f, voltages.get(1), 1e-5);
+
+        currentSubscription.cancel();
+        var count = currents.size();
+        V1.setVoltage(20);
+        Net.calculate();
+        Assertions.assertEquals(count, currents.size(), "Cancelled subscription should not notify");
+        Assertions.assertEquals(3, voltages.size());
+    }
+
+    @Test
+    void testSubscriptionFollowsMerge() {
+        var Net1 = new Network();
+        var V1 = Net1.V(10);
+        var N1 = Net1.N();
+        Net1.W(10, V1, N1);
+
+        var Net2 = new Network();
+        var N2 = Net2.N();
+        var W2 = Net2.W(10, N2, null);
+        List<Float> powers = new ArrayList<>();
+        W2.subscribePower(0.01f, powers::add);
+        Net2.calculate();
+        Assertions.assertTrue(powers.isEmpty(), "Unchanged value should not notify");
+
+        Net1.network.merge(Net2.network);
+        Net1.W(1e-3f, N1, N2);
+        Net1.calculate();
+        Assertions.assertEquals(1, powers.size(), "Subscription should move with its wire into the merged network");
+        Assertions.assertEquals(2.5f, powers.get(0), 1e-3);
+    }
+}
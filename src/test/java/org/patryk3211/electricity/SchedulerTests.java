@@ -0,0 +1,146 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
+import org.patryk3211.powergrid.electricity.sim.SolveScheduler;
+import org.patryk3211.powergrid.electricity.sim.node.INode;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public class SchedulerTests extends TestHelper {
+    // Node group standing in for a block in the world.
+    private static class Block implements Iterable<INode> {
+        boolean ticking = true;
+        boolean observer = false;
+        boolean nearPlayer = false;
+
+        @Override
+        public Iterator<INode> iterator() {
+            return Collections.emptyIterator();
+        }
+    }
+
+    private static boolean isActive(ElectricalNetwork network) {
+        return SolveScheduler.isActive(network, Block.class, block -> block.ticking, block -> block.observer, block -> block.nearPlayer);
+    }
+
+    // Small solved network, so that it has a solve time estimate.
+    private static Network solvedNetwork() {
+        var Net = new Network();
+        var N1 = Net.N();
+        Net.W(1, Net.V(10), N1);
+        Net.W(1, N1, null);
+        Net.calculate();
+        return Net;
+    }
+
+    @Test
+    void testActivity() {
+        var Net = new Network();
+        Assertions.assertTrue(isActive(Net.network), "Network without blocks should run at full rate");
+
+        var far = new Block();
+        Net.network.addNodeGroup(far);
+        Assertions.assertFalse(isActive(Net.network), "Network far from players should be reduced");
+
+        var near = new Block();
+        near.nearPlayer = true;
+        near.ticking = false;
+        Net.network.addNodeGroup(near);
+        Assertions.assertFalse(isActive(Net.network), "Blocks in lazily loaded chunks shouldn't keep the network active");
+
+        near.ticking = true;
+        Assertions.assertTrue(isActive(Net.network), "Network near a player should run at full rate");
+
+        near.nearPlayer = false;
+        far.observer = true;
+        Assertions.assertTrue(isActive(Net.network), "Network with an observer should run at full rate");
+    }
+
+    @Test
+    void testReducedRate() {
+        final int interval = 10;
+        var scheduler = new SolveScheduler();
+        var reduced = solvedNetwork().network;
+        var full = solvedNetwork().network;
+        var networks = List.of(reduced, full);
+
+        int reducedSolves = 0;
+        for(long time = 0; time < 100; ++time) {
+            var scheduled = scheduler.schedule(networks, time, interval, 0, network -> network == full);
+            Assertions.assertTrue(scheduled.contains(full), "Active network should be solved every tick");
+            if(scheduled.contains(reduced)) {
+                Assertions.assertEquals(0, time % interval, "Reduced network solved out of its interval");
+                ++reducedSolves;
+            }
+        }
+        Assertions.assertEquals(100 / interval, reducedSolves, "Reduced network should be solved once per interval");
+
+        // Without the level of detail everything runs every tick.
+        Assertions.assertEquals(networks, scheduler.schedule(networks, 101, 1, 0, network -> false));
+    }
+
+    @Test
+    void testReevaluation() {
+        var scheduler = new SolveScheduler();
+        var Net = solvedNetwork();
+        var networks = List.of(Net.network);
+        var block = new Block();
+        Net.network.addNodeGroup(block);
+
+        scheduler.schedule(networks, 0, 1000, 0, SchedulerTests::isActive);
+        Assertions.assertTrue(scheduler.schedule(networks, 1, 1000, 0, SchedulerTests::isActive).isEmpty(), "Inactive network should be reduced");
+
+        // Player coming close is noticed at the next evaluation.
+        block.nearPlayer = true;
+        boolean solved = false;
+        for(long time = 2; time <= SolveScheduler.EVALUATION_INTERVAL; ++time)
+            solved |= !scheduler.schedule(networks, time, 1000, 0, SchedulerTests::isActive).isEmpty();
+        Assertions.assertTrue(solved, "Activity change should be noticed within the evaluation interval");
+        Assertions.assertFalse(scheduler.schedule(networks, SolveScheduler.EVALUATION_INTERVAL + 1, 1000, 0, SchedulerTests::isActive).isEmpty(),
+                "Active network should be solved every tick");
+    }
+
+    @Test
+    void testBudgetDeferral() {
+        var scheduler = new SolveScheduler();
+        var networks = List.of(solvedNetwork().network, solvedNetwork().network, solvedNetwork().network);
+        for(var network : networks)
+            Assertions.assertTrue(network.getSolveTime() > 0, "Solved network should have a solve time");
+
+        // Budget smaller than any solve only fits the first network, the rest wait and move up the queue.
+        var first = scheduler.schedule(networks, 0, 1, 1, network -> true);
+        Assertions.assertEquals(1, first.size(), "Only one network should fit the budget");
+        var second = scheduler.schedule(networks, 1, 1, 1, network -> true);
+        Assertions.assertEquals(1, second.size(), "Only one network should fit the budget");
+        Assertions.assertNotEquals(first.get(0), second.get(0), "Deferred network should be solved before the one solved last tick");
+        var third = scheduler.schedule(networks, 2, 1, 1, network -> true);
+        Assertions.assertFalse(third.contains(first.get(0)) || third.contains(second.get(0)), "Network waiting longest should be solved");
+
+        // Cheapest of the networks waiting equally long goes first.
+        var cheapest = networks.get(0);
+        for(var network : networks) {
+            if(network.getSolveTime() < cheapest.getSolveTime())
+                cheapest = network;
+        }
+        Assertions.assertEquals(cheapest, scheduler.schedule(networks, 3, 1, 1, network -> true).get(0), "Cheapest network should be solved first");
+    }
+}
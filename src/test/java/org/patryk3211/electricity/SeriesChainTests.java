@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.ElectricWire;
+import org.patryk3211.powergrid.electricity.sim.node.FloatingNode;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+
+public class SeriesChainTests extends TestHelper {
+    @Test
+    void testChainReconstruction() {
+        for(var type : SolverType.values()) {
+            var Net = new Network(type);
+
+            var V1 = Net.V(10);
+            var N = new FloatingNode[100];
+            var W = new ElectricWire[N.length];
+            for(int i = 0; i < N.length; ++i) {
+                N[i] = Net.N();
+                W[i] = Net.W(1, i == 0 ? V1 : N[i - 1], N[i]);
+            }
+            var End = Net.N();
+            Net.W(1, N[N.length - 1], End);
+            Net.W(50, End, null);
+            Net.W(50, End, null);
+
+            Net.calculate();
+            Assertions.assertEquals(N.length, Net.network.getCompactedNodeCount(), type + " chain nodes should be eliminated");
+            // 101 ohm chain in series with 25 ohm load.
+            double current = 10.0 / 126;
+            Assertions.assertEquals(current, V1.getCurrent(), 1e-5, type + " source current is incorrect");
+            for(int i = 0; i < N.length; ++i)
+                Assertions.assertEquals(10 - current * (i + 1), N[i].getVoltage(), 1e-4, type + " chain node has incorrect voltage");
+            Assertions.assertEquals(current, W[50].current(), 1e-5, type + " chain wire current is incorrect");
+
+            // Resistance change inside the chain is applied without a rebuild.
+            W[50].setResistance(27);
+            Assertions.assertFalse(Net.network.isDirty(), type + " chain resistance change should not rebuild the network");
+            Net.calculate();
+            current = 10.0 / 152;
+            Assertions.assertEquals(25 * current, End.getVoltage(), 1e-4, type + " chain end has incorrect voltage after resistance change");
+            Assertions.assertEquals(10 - current * 50, N[49].getVoltage(), 1e-4, type + " chain node has incorrect voltage after resistance change");
+            Assertions.assertEquals(10 - current * 77, N[50].getVoltage(), 1e-4, type + " chain node has incorrect voltage after resistance change");
+        }
+    }
+
+    @Test
+    void testChainSwitch() {
+        var Net = new Network();
+
+        var V1 = Net.V(10);
+        var A = Net.N();
+        var B = Net.N();
+        var C = Net.N();
+        Net.W(1, V1, A);
+        var Switch = Net.SW(1, A, B, true);
+        Net.W(1, B, C);
+        Net.W(7, C, null);
+
+        Net.calculate();
+        Assertions.assertEquals(3, Net.network.getCompactedNodeCount(), "Chain nodes should be eliminated");
+        Assertions.assertEquals(7, C.getVoltage(), 1e-4, "Chain end has incorrect voltage");
+
+        Switch.setState(false);
+        Net.calculate();
+        Assertions.assertEquals(10, A.getVoltage(), 1e-4, "Node before the open switch should have the source voltage");
+        Assertions.assertEquals(0, B.getVoltage(), 1e-4, "Node after the open switch should be grounded");
+        Assertions.assertEquals(0, C.getVoltage(), 1e-4, "Node after the open switch should be grounded");
+        Assertions.assertEquals(0, V1.getCurrent(), 1e-4, "No current should flow through an open switch");
+
+        Switch.setState(true);
+        Net.calculate();
+        Assertions.assertEquals(7, C.getVoltage(), 1e-4, "Chain end has incorrect voltage after closing the switch");
+    }
+
+    @Test
+    void testChainStructureChange() {
+        var Net = new Network();
+
+        var V1 = Net.V(10);
+        var A = Net.N();
+        var B = Net.N();
+        Net.W(5, V1, A);
+        var Middle = Net.W(5, A, B);
+        Net.W(10, B, null);
+        Net.calculate();
+        Assertions.assertEquals(7.5, A.getVoltage(), 1e-4, "Chain node has incorrect voltage");
+
+        // Loading a chain node breaks the chain.
+        Net.W(10, A, null);
+        Assertions.assertTrue(Net.network.isDirty(), "Wire on a chain node should rebuild the network");
+        Net.calculate();
+        Assertions.assertEquals(1, Net.network.getCompactedNodeCount(), "Only the loaded end should remain a chain node");
+        // A = 10 * (10 || 15) / (5 + 10 || 15)
+        Assertions.assertEquals(10.0 * 6 / 11, A.getVoltage(), 1e-4, "Node has incorrect voltage after breaking the chain");
+
+        Middle.remove();
+        Net.calculate();
+        Assertions.assertEquals(10.0 * 10 / 15, A.getVoltage(), 1e-4, "Node has incorrect voltage after removing a chain wire");
+        Assertions.assertEquals(0, B.getVoltage(), 1e-4, "Disconnected node should have no voltage");
+    }
+
+    @Test
+    void testDanglingLoop() {
+        var Net = new Network();
+
+        var V1 = Net.V(10);
+        var A = Net.N();
+        var B = Net.N();
+        var C = Net.N();
+        Net.W(1, V1, A);
+        Net.W(1, A, null);
+        // Loop from A back to A through B and C carries no current.
+        Net.W(3, A, B);
+        Net.W(3, B, C);
+        Net.W(3, C, A);
+
+        Net.calculate();
+        Assertions.assertEquals(2, Net.network.getCompactedNodeCount(), "Loop nodes should be eliminated");
+        Assertions.assertEquals(5, A.getVoltage(), 1e-4, "Loop start has incorrect voltage");
+        Assertions.assertEquals(5, B.getVoltage(), 1e-4, "Loop node has incorrect voltage");
+        Assertions.assertEquals(5, C.getVoltage(), 1e-4, "Loop node has incorrect voltage");
+    }
+}
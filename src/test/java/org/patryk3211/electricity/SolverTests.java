@@ -54,4 +54,53 @@ public class SolverTests extends TestHelper {
         Assertions.assertEquals( 1f / 10, V1.getCurrent(), 1e-6, "Voltage source 1 current is incorrect");
         Assertions.assertEquals(-1f / 10, V2.getCurrent(), 1e-6, "Voltage source 2 current is incorrect");
     }
+
+    @Test
+    void testLargeStarNetwork() {
+        var Net = new Network();
+
+        final int loads = 5000;
+        var V1 = Net.V(5);
+        var N = new FloatingNode[loads];
+        for(int i = 0; i < loads; ++i) {
+            N[i] = Net.N();
+            Net.W(10.0f, V1, N[i]);
+            Net.W(20.0f, N[i], null);
+        }
+
+        Net.calculate();
+
+        for(int i = 0; i < loads; ++i)
+            Assertions.assertEquals(5f * 20 / (10 + 20), N[i].getVoltage(), 1e-5, "Load node has incorrect voltage");
+        Assertions.assertEquals(5f / 30 * loads, V1.getCurrent(), 1e-2, "Voltage source current is incorrect");
+    }
+
+    @Test
+    void testSolverMetrics() {
+        var Net = new Network();
+
+        var V1 = Net.V(5);
+        var N1 = Net.N();
+
+        Net.W(10.0f, V1, N1);
+        Net.W(20.0f, N1, null);
+
+        Net.calculate();
+        V1.setVoltage(6);
+        Net.calculate();
+
+        var metrics = Net.network.getMetrics();
+        Assertions.assertEquals(2, metrics.getSolves(), "Incorrect number of recorded solves");
+        Assertions.assertEquals(1, metrics.getRebuilds(), "Source change should not rebuild the system");
+        Assertions.assertEquals(0, metrics.getNanRetries(), "Solve was retried");
+        Assertions.assertEquals(0, metrics.getUnconvergedSolves(), "Solve didn't converge");
+        Assertions.assertTrue(metrics.getLastResidual() < 1e-6, "Residual of the last solve is too large");
+        Assertions.assertEquals(metrics.getLastResidual(), Net.network.getResidual(), "Network and metrics residual differ");
+        Assertions.assertTrue(Net.network.getNonZeroCount() > 0, "Solved matrix has no nonzero entries");
+
+        Net.W(20.0f, N1, null);
+        Net.calculate();
+        Assertions.assertEquals(2, metrics.getRebuilds(), "Added wire should rebuild the system");
+        Assertions.assertTrue(metrics.getTimeSinceStructureChange() >= 0, "Structure change time is in the future");
+    }
 }
@@ -17,6 +17,8 @@ package org.patryk3211.electricity;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.node.FloatingNode;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
 
 public class StructureChangeTests extends TestHelper {
     @Test
@@ -228,4 +230,193 @@ public class StructureChangeTests extends TestHelper {
         Assertions.assertEquals(5f / 20, V1.getCurrent(), "V1 current incorrect");
         Assertions.assertEquals(4f / 20, V2.getCurrent(), "V2 current incorrect");
     }
+
+    @Test
+    void testUnchangedNetworkSkipped() {
+        var Net = new Network();
+
+        var V1 = Net.V(5);
+        var N1 = Net.N();
+        var Wire = Net.W(10, V1, N1);
+        Net.W(10, N1, null);
+
+        Assertions.assertTrue(Net.network.needsCalculation(), "New network must be calculated");
+        Net.calculate();
+        Assertions.assertFalse(Net.network.needsCalculation(), "Network without changes should not be calculated again");
+        Assertions.assertEquals(2.5f, N1.getVoltage(), 1e-6, "Resistor divider node has incorrect voltage");
+
+        V1.setVoltage(10);
+        Assertions.assertTrue(Net.network.needsCalculation(), "Voltage change should require a calculation");
+        Net.calculate();
+        Assertions.assertEquals(5f, N1.getVoltage(), 1e-6, "Resistor divider node has incorrect voltage after voltage change");
+
+        Wire.setResistance(30);
+        Assertions.assertTrue(Net.network.needsCalculation(), "Resistance change should require a calculation");
+        Net.calculate();
+        Assertions.assertFalse(Net.network.needsCalculation(), "Network without changes should not be calculated again");
+        Assertions.assertEquals(2.5f, N1.getVoltage(), 1e-6, "Resistor divider node has incorrect voltage after resistance change");
+
+        Net.N();
+        Assertions.assertTrue(Net.network.needsCalculation(), "Structure change should require a calculation");
+    }
+
+    @Test
+    void testBatchAssembly() {
+        var Net = new Network();
+
+        Net.network.beginBatch();
+        var V1 = Net.V(5);
+        var N = new FloatingNode[100];
+        for(int i = 0; i < N.length; ++i) {
+            N[i] = Net.N();
+            Net.W(1, i == 0 ? V1 : N[i - 1], N[i]);
+        }
+        Net.W(100, N[N.length - 1], null);
+        Net.network.commit();
+
+        Net.calculate();
+        Assertions.assertEquals(5f * 100 / (100 + 100), N[N.length - 1].getVoltage(), 1e-4, "Chain end has incorrect voltage");
+
+        // Invalid wires are reported when the batch is committed.
+        var Other = new Network();
+        var Foreign = Other.N();
+        Net.network.beginBatch();
+        Net.W(1, N[0], Foreign);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Net.network.commit(), "Wire with a foreign node should be rejected");
+    }
+
+    @Test
+    void testMergeAndConnect() {
+        var Net1 = new Network();
+        var Net2 = new Network();
+
+        var V1 = Net1.V(10);
+        var N1 = Net1.N();
+        Net1.W(10, V1, N1);
+        var N2 = Net2.N();
+        Net2.W(10, N2, null);
+        Net1.calculate();
+        Net2.calculate();
+
+        Net1.network.merge(Net2.network);
+        Assertions.assertTrue(Net2.network.isEmpty(), "Merged network should be empty");
+        Assertions.assertTrue(Net1.network.containsNode(N2), "Merged node should be in the network");
+        Net1.W(0.001f, N1, N2);
+        Net1.calculate();
+        Assertions.assertEquals(5, N2.getVoltage(), 1e-2, "Merged network has incorrect voltage");
+    }
+
+    @Test
+    void testPublishedResults() {
+        var Net = new Network();
+        var V1 = Net.V(10);
+        var N1 = Net.N();
+        var N2 = Net.N();
+        var N3 = Net.N();
+        var W1 = Net.W(10, V1, N1);
+        Net.W(10, N1, N2);
+        var W3 = Net.W(10, N2, N3);
+        Net.W(10, N3, null);
+        Net.calculate();
+        Assertions.assertEquals(7.5, N1.getVoltage(), 1e-4);
+        Assertions.assertEquals(0.25, W1.current(), 1e-5, "Published wire current is incorrect");
+        Assertions.assertEquals(0.625, W1.power(), 1e-5, "Published wire power is incorrect");
+        Assertions.assertEquals(0.25, V1.getCurrent(), 1e-5, "Published source current is incorrect");
+
+        // Removal moves the last node into the hole, every node must still read its own result.
+        W3.remove();
+        Net.network.removeNode(N1);
+        Assertions.assertEquals(7.5, N1.getVoltage(), 1e-4, "Removed node should keep its last result");
+        Assertions.assertEquals(5, N2.getVoltage(), 1e-4, "Node should keep its result until the next solve");
+        Assertions.assertEquals(2.5, N3.getVoltage(), 1e-4, "Moved node should keep its result until the next solve");
+
+        Net.W(10, V1, N2);
+        Net.calculate();
+        Assertions.assertEquals(7.5, N1.getVoltage(), 1e-4, "Removed node should not read results of the network");
+        Assertions.assertEquals(0, N3.getVoltage(), 1e-4);
+        Assertions.assertEquals(10, N2.getVoltage(), 1e-4);
+    }
+
+    @Test
+    void testDeferredUpdates() {
+        for(boolean coupled : new boolean[] { false, true }) {
+            var Net = new Network();
+            var V1 = Net.V(10);
+            var C1 = Net.C(0.1f);
+            var N1 = Net.N();
+            var N2 = Net.N();
+            var W1 = Net.W(10, V1, N1);
+            var S1 = Net.SW(5, N1, N2);
+            var W3 = Net.W(20, N2, null);
+            Net.W(40, C1, null);
+            Net.W(40, C1, N1);
+            FloatingNode Sec = null;
+            if(coupled) {
+                Sec = Net.N();
+                Net.TR(0.5f, V1, Sec);
+                Net.W(10, Sec, null);
+            }
+            Net.calculate();
+
+            // Repeated changes of one element are collapsed, the system only sees the final values.
+            for(int i = 0; i < 5; ++i) {
+                V1.setVoltage(10 + i);
+                C1.setCurrent(0.1f * i);
+                W1.setResistance(10 + i);
+            }
+            S1.setState(false);
+            S1.setState(true);
+            W3.setResistance(30);
+            W3.setResistance(20);
+            S1.setState(false);
+            Net.calculate();
+
+            var Ref = new Network();
+            var RV1 = Ref.V(14);
+            var RC1 = Ref.C(0.4f);
+            var RN1 = Ref.N();
+            var RN2 = Ref.N();
+            Ref.W(14, RV1, RN1);
+            Ref.SW(5, RN1, RN2, false);
+            Ref.W(20, RN2, null);
+            Ref.W(40, RC1, null);
+            Ref.W(40, RC1, RN1);
+            FloatingNode RSec = null;
+            if(coupled) {
+                RSec = Ref.N();
+                Ref.TR(0.5f, RV1, RSec);
+                Ref.W(10, RSec, null);
+            }
+            Ref.calculate();
+
+            Assertions.assertEquals(RN1.getVoltage(), N1.getVoltage(), 1e-4, "Deferred updates give a different result");
+            Assertions.assertEquals(RN2.getVoltage(), N2.getVoltage(), 1e-4, "Deferred updates give a different result");
+            Assertions.assertEquals(RC1.getVoltage(), C1.getVoltage(), 1e-4, "Deferred updates give a different result");
+            Assertions.assertEquals(RV1.getCurrent(), V1.getCurrent(), 1e-4, "Deferred updates give a different result");
+            if(coupled)
+                Assertions.assertEquals(RSec.getVoltage(), Sec.getVoltage(), 1e-4, "Deferred updates give a different result");
+        }
+    }
+
+    @Test
+    void testWarmStartAfterStructureChange() {
+        var Net = new Network(SolverType.BICGSTAB);
+
+        var V1 = Net.V(10);
+        var N = Net.ladder(V1, 300);
+        Net.calculate();
+        var coldIterations = Net.network.getSolverIterations();
+
+        // New node placed next to the grid, seeded from its neighbour.
+        var Extra = Net.N();
+        Net.W(1000, N[150], Extra);
+        Net.calculate();
+        Assertions.assertTrue(Net.network.getSolverIterations() < coldIterations / 2, "Solve after adding a node should start from the previous solution");
+        Assertions.assertEquals(N[150].getVoltage(), Extra.getVoltage(), 1e-4, "Node without load should have the voltage of its neighbour");
+
+        // Removal moves the last node into the hole, previous solution has to follow it.
+        Net.network.removeNode(Extra);
+        Net.calculate();
+        Assertions.assertTrue(Net.network.getSolverIterations() < coldIterations / 2, "Solve after removing a node should start from the previous solution");
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 patryk3211
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.patryk3211.electricity;
+
+import org.ejml.data.DMatrixRMaj;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.patryk3211.powergrid.electricity.sim.solver.ConjugateGradientSolver;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
+import org.patryk3211.powergrid.electricity.sim.solver.SparseMatrix;
+
+public class SymmetricFormulationTests extends TestHelper {
+    @Test
+    void testSourceCurrent() {
+        for(var type : SolverType.values()) {
+            var Net = new Network(type);
+
+            var V1 = Net.V(10);
+            var V2 = Net.V(5);
+            var N1 = Net.N();
+            Net.W(1, V1, N1);
+            Net.W(1, V2, N1);
+            Net.W(2, N1, null);
+            // Direct load on the source.
+            Net.W(10, V1, null);
+
+            Net.calculate();
+
+            // N1 = (10 + 5) / (1 + 1 + 0.5)
+            Assertions.assertEquals(6, N1.getVoltage(), 1e-4, type + " node voltage is incorrect");
+            Assertions.assertEquals(4 + 1, V1.getCurrent(), 1e-4, type + " source current is incorrect");
+            Assertions.assertEquals(-1, V2.getCurrent(), 1e-4, type + " source current is incorrect");
+        }
+    }
+
+    @Test
+    void testSourceLoadChange() {
+        for(var type : SolverType.values()) {
+            var Net = new Network(type);
+
+            var V1 = Net.V(10);
+            var N1 = Net.N();
+            Net.W(1, V1, N1);
+            Net.W(1, N1, null);
+            var Load = Net.W(10, V1, null);
+
+            Net.calculate();
+            Assertions.assertEquals(5, N1.getVoltage(), 1e-4, type + " node voltage is incorrect");
+            Assertions.assertEquals(6, V1.getCurrent(), 1e-4, type + " source current is incorrect");
+
+            // Wire with a single node connected to a voltage source.
+            Load.setResistance(5);
+            V1.setVoltage(20);
+            Net.calculate();
+            Assertions.assertEquals(10, N1.getVoltage(), 1e-4, type + " node voltage is incorrect after change");
+            Assertions.assertEquals(14, V1.getCurrent(), 1e-4, type + " source current is incorrect after change");
+        }
+    }
+
+    @Test
+    void testFormulationSwitch() {
+        var Ref = new Network(SolverType.BICGSTAB);
+        var RefP = Ref.N();
+        var RefS = Ref.N();
+        Ref.W(1, Ref.V(10), RefP);
+        Ref.W(10, RefS, null);
+        Ref.TR(2, RefP, RefS);
+        Ref.calculate();
+
+        var Net = new Network(SolverType.BICGSTAB);
+        var P = Net.N();
+        var S = Net.N();
+        Net.W(1, Net.V(10), P);
+        Net.W(10, S, null);
+        Net.calculate();
+        Assertions.assertEquals(10, P.getVoltage(), 1e-4, "Primary voltage is incorrect");
+        Assertions.assertEquals(0, S.getVoltage(), 1e-4, "Secondary voltage is incorrect");
+
+        // Adding a coupling switches the network to the general formulation.
+        var TR = Net.TR(2, P, S);
+        Net.calculate();
+        Assertions.assertEquals(RefS.getVoltage(), S.getVoltage(), 1e-4, "Secondary voltage is incorrect");
+
+        Net.network.removeNode(TR);
+        Net.calculate();
+        Assertions.assertEquals(0, S.getVoltage(), 1e-4, "Secondary voltage is incorrect after coupling removal");
+    }
+
+    @Test
+    void testSingularBreakdown() {
+        // Second unknown has no conductance, like a node fed only by a current source.
+        var A = new SparseMatrix(2);
+        A.add(0, 0, 1);
+        var b = new DMatrixRMaj(2, 1);
+        b.set(1, 0, 1);
+
+        var solver = new ConjugateGradientSolver(1e-9);
+        solver.setStateSize(2);
+        solver.solve(A, b);
+        Assertions.assertFalse(solver.hasConverged(), "Breakdown must not be reported as converged");
+    }
+}
@@ -19,6 +19,7 @@ import org.patryk3211.powergrid.electricity.sim.ElectricWire;
 import org.patryk3211.powergrid.electricity.sim.ElectricalNetwork;
 import org.patryk3211.powergrid.electricity.sim.SwitchedWire;
 import org.patryk3211.powergrid.electricity.sim.node.*;
+import org.patryk3211.powergrid.electricity.sim.solver.SolverType;
 
 public abstract class TestHelper {
     protected static class Network {
@@ -28,6 +29,10 @@ public abstract class TestHelper {
             network = new ElectricalNetwork();
         }
 
+        public Network(SolverType solverType) {
+            network = new ElectricalNetwork(solverType);
+        }
+
         public FloatingNode N() {
             var node = new FloatingNode();
             network.addNode(node);
@@ -100,6 +105,17 @@ public abstract class TestHelper {
             return wire;
         }
 
+        // Resistor ladder fed from the source, every node also has a load to ground.
+        public FloatingNode[] ladder(IElectricNode source, int length) {
+            var N = new FloatingNode[length];
+            for(int i = 0; i < length; ++i) {
+                N[i] = N();
+                W(1.0f + (i % 7), i == 0 ? source : N[i - 1], N[i]);
+                W(100.0f * (1 + i % 3), N[i], null);
+            }
+            return N;
+        }
+
         public void calculate() {
             network.calculate();
         }